@@ -0,0 +1,158 @@
+@echo off
+rem Builds and launches HealthPoint, optionally with an application class-data-sharing archive.
+rem
+rem   scripts\healthpoint.bat build          compile src into build\healthpoint.jar
+rem   scripts\healthpoint.bat train          record the archive from a scripted session
+rem   scripts\healthpoint.bat run            start the app, using the archive when there is one
+rem   scripts\healthpoint.bat measure [N]    startup time and peak working set without and
+rem                                          with the archive, over N runs (default 5)
+rem
+rem Same modes as healthpoint.sh; see there for details. Uses a dynamic AppCDS archive
+rem (build\healthpoint.jsa), or an AOT cache (build\healthpoint.aot) on JDK 25+.
+rem
+rem Environment:
+rem   JAVAFX_HOME  lib directory of a JavaFX SDK (required)
+rem   JAVA_HOME    JDK 21 or later (optional, defaults to java on the PATH)
+
+setlocal EnableDelayedExpansion
+
+set "APP_DIR=%~dp0.."
+for %%I in ("%APP_DIR%") do set "APP_DIR=%%~fI"
+set "BUILD_DIR=%APP_DIR%\build"
+set "JAR=%BUILD_DIR%\healthpoint.jar"
+set "CDS_ARCHIVE=%BUILD_DIR%\healthpoint.jsa"
+set "AOT_CACHE=%BUILD_DIR%\healthpoint.aot"
+
+if defined JAVA_HOME (
+    set "JAVA=%JAVA_HOME%\bin\java.exe"
+    set "JAVAC=%JAVA_HOME%\bin\javac.exe"
+    set "JAR_TOOL=%JAVA_HOME%\bin\jar.exe"
+) else (
+    set "JAVA=java"
+    set "JAVAC=javac"
+    set "JAR_TOOL=jar"
+)
+
+if not defined JAVAFX_HOME (
+    echo Set JAVAFX_HOME to the lib directory of a JavaFX SDK 1>&2
+    exit /b 1
+)
+
+rem Absolute and in a fixed order: an archive only matches the module path it was made with
+set "LIBRARIES=%JAVAFX_HOME%;%APP_DIR%\icons;%APP_DIR%\forprinting;%APP_DIR%\sqlite_dbc"
+set "MODULE_PATH=%JAR%;%LIBRARIES%"
+set "MAIN_MODULE=HealthPoint/model.Main"
+
+set "HAS_AOT_CACHE="
+"%JAVA%" -XX:+PrintFlagsFinal -version 2>nul | findstr /c:"AOTCacheOutput" >nul && set "HAS_AOT_CACHE=1"
+
+if /i "%~1"=="build" goto build
+if /i "%~1"=="train" goto train
+if /i "%~1"=="run" goto run
+if /i "%~1"=="measure" goto measure
+echo Usage: %~nx0 build^|train^|run^|measure [runs] 1>&2
+exit /b 1
+
+:build
+call :do_build || exit /b 1
+exit /b 0
+
+:train
+call :do_train || exit /b 1
+exit /b 0
+
+:run
+if not exist "%JAR%" call :do_build || exit /b 1
+call :archive_options
+cd /d "%APP_DIR%"
+"%JAVA%" %ARCHIVE_OPTIONS% --module-path "%MODULE_PATH%" --module %MAIN_MODULE%
+exit /b %ERRORLEVEL%
+
+:measure
+set "RUNS=%~2"
+if not defined RUNS set "RUNS=5"
+if not exist "%JAR%" call :do_build || exit /b 1
+call :archive_options
+if not defined ARCHIVE_OPTIONS (
+    call :do_train || exit /b 1
+    call :archive_options
+)
+rem One unmeasured run so both sides start with the files in the OS cache
+call :scripted_run startup "" >nul 2>&1
+call :measure_runs "default CDS" ""
+call :measure_runs "app archive" "%ARCHIVE_OPTIONS%"
+exit /b 0
+
+:do_build
+if exist "%BUILD_DIR%\classes" rmdir /s /q "%BUILD_DIR%\classes"
+mkdir "%BUILD_DIR%\classes"
+dir /s /b "%APP_DIR%\src\*.java" > "%BUILD_DIR%\sources.txt"
+rem @file arguments treat backslashes as escapes
+powershell -NoProfile -Command "(Get-Content '%BUILD_DIR%\sources.txt') -replace '\\','/' | Set-Content '%BUILD_DIR%\sources.txt'"
+"%JAVAC%" -d "%BUILD_DIR%\classes" --module-path "%LIBRARIES%" @"%BUILD_DIR%\sources.txt" || exit /b 1
+rem FXML, CSS and images are loaded from the module
+xcopy /e /i /q /y "%APP_DIR%\src\view" "%BUILD_DIR%\classes\view" >nul
+"%JAR_TOOL%" --create --file "%JAR%" --main-class model.Main -C "%BUILD_DIR%\classes" . || exit /b 1
+rem Made for the old jar
+if exist "%CDS_ARCHIVE%" del "%CDS_ARCHIVE%"
+if exist "%AOT_CACHE%" del "%AOT_CACHE%"
+echo Built %JAR%
+exit /b 0
+
+:do_train
+if not exist "%JAR%" call :do_build || exit /b 1
+if exist "%CDS_ARCHIVE%" del "%CDS_ARCHIVE%"
+if exist "%AOT_CACHE%" del "%AOT_CACHE%"
+if defined HAS_AOT_CACHE (
+    call :scripted_run workload "-XX:AOTCacheOutput=%AOT_CACHE%" || exit /b 1
+    echo Recorded %AOT_CACHE%
+) else (
+    call :scripted_run workload "-XX:ArchiveClassesAtExit=%CDS_ARCHIVE%" || exit /b 1
+    echo Recorded %CDS_ARCHIVE%
+)
+exit /b 0
+
+rem Sets ARCHIVE_OPTIONS to the JVM option for whichever archive exists
+:archive_options
+set "ARCHIVE_OPTIONS="
+if defined HAS_AOT_CACHE if exist "%AOT_CACHE%" set "ARCHIVE_OPTIONS=-XX:AOTCache=%AOT_CACHE%"
+if not defined ARCHIVE_OPTIONS if exist "%CDS_ARCHIVE%" set "ARCHIVE_OPTIONS=-XX:SharedArchiveFile=%CDS_ARCHIVE%"
+exit /b 0
+
+rem Runs a scripted session in a scratch directory holding a copy of the database
+rem %1: training mode (startup or workload), %2: extra JVM option or ""
+:scripted_run
+set "WORK_DIR=%BUILD_DIR%\run-%~1"
+if exist "%WORK_DIR%" rmdir /s /q "%WORK_DIR%"
+mkdir "%WORK_DIR%"
+copy /y "%APP_DIR%\Healthpoint.db" "%WORK_DIR%\" >nul
+pushd "%WORK_DIR%"
+"%JAVA%" %~2 -Dhealthpoint.training=%~1 --module-path "%MODULE_PATH%" --module %MAIN_MODULE%
+set "RESULT=%ERRORLEVEL%"
+popd
+exit /b %RESULT%
+
+rem Runs the startup session N times and prints the median startup time and peak working
+rem set; Windows has no /proc, so PowerShell samples the process from outside.
+rem %1: label, %2: extra JVM option or ""
+:measure_runs
+set "RESULTS=%BUILD_DIR%\measure-%~1.txt"
+set "WORK_DIR=%BUILD_DIR%\run-startup"
+if exist "%RESULTS%" del "%RESULTS%"
+for /l %%R in (1,1,%RUNS%) do (
+    if exist "%WORK_DIR%" rmdir /s /q "%WORK_DIR%"
+    mkdir "%WORK_DIR%"
+    copy /y "%APP_DIR%\Healthpoint.db" "%WORK_DIR%\" >nul
+    powershell -NoProfile -Command ^
+        "$p = Start-Process -FilePath '%JAVA%' -WorkingDirectory '%WORK_DIR%' -NoNewWindow -PassThru" ^
+        " -RedirectStandardOutput '%WORK_DIR%\out.txt' -RedirectStandardError '%WORK_DIR%\err.txt'" ^
+        " -ArgumentList '%~2 -Dhealthpoint.training=startup --module-path \"%MODULE_PATH%\" --module %MAIN_MODULE%';" ^
+        " $peak = 0; while (-not $p.HasExited) { $p.Refresh(); if ($p.PeakWorkingSet64 -gt $peak) { $peak = $p.PeakWorkingSet64 }; Start-Sleep -Milliseconds 20 };" ^
+        " Get-Content '%WORK_DIR%\out.txt' | Select-String '^STARTUP_READY_MS=' | ForEach-Object { $_.Line };" ^
+        " 'PEAK_RSS_KB=' + [long]($peak / 1024)" >> "%RESULTS%"
+)
+powershell -NoProfile -Command ^
+    "$lines = Get-Content '%RESULTS%';" ^
+    " function Median($key) { $v = @($lines | Where-Object { $_ -like ($key + '=*') } | ForEach-Object { [long]($_.Split('=')[1]) } | Sort-Object); if ($v.Count -eq 0) { 'n/a' } else { $v[[int][Math]::Floor(($v.Count - 1) / 2)] } };" ^
+    " '{0,-16} startup {1,6} ms   peak working set {2,8} KB   (median of {3} runs)' -f '%~1', (Median 'STARTUP_READY_MS'), (Median 'PEAK_RSS_KB'), %RUNS%"
+exit /b 0
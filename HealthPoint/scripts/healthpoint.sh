@@ -0,0 +1,150 @@
+#!/bin/sh
+# Builds and launches HealthPoint, optionally with an application class-data-sharing archive.
+#
+#   scripts/healthpoint.sh build          compile src into build/healthpoint.jar
+#   scripts/healthpoint.sh train          record the archive from a scripted session
+#   scripts/healthpoint.sh run            start the app, using the archive when there is one
+#   scripts/healthpoint.sh measure [N]    startup time and peak RSS without and with the
+#                                         archive, median of N runs (default 5)
+#
+# The archive is a dynamic AppCDS archive (build/healthpoint.jsa) on JDK 21-24, and an
+# AOT cache (build/healthpoint.aot) on JDKs that have one (JDK 25+). The training session
+# logs in, pages through inventory, opens Order and checks out one item, against a copy
+# of the database. Rebuild the jar and retrain together: the JVM ignores an archive made
+# for different jars.
+#
+# Environment:
+#   JAVAFX_HOME  lib directory of a JavaFX SDK (required)
+#   JAVA_HOME    JDK 21 or later (optional, defaults to java on the PATH)
+
+set -e
+
+APP_DIR=$(cd "$(dirname "$0")/.." && pwd)
+BUILD_DIR="$APP_DIR/build"
+JAR="$BUILD_DIR/healthpoint.jar"
+CDS_ARCHIVE="$BUILD_DIR/healthpoint.jsa"
+AOT_CACHE="$BUILD_DIR/healthpoint.aot"
+
+if [ -n "$JAVA_HOME" ]; then
+    JAVA="$JAVA_HOME/bin/java"
+    JAVAC="$JAVA_HOME/bin/javac"
+    JAR_TOOL="$JAVA_HOME/bin/jar"
+else
+    JAVA=java
+    JAVAC=javac
+    JAR_TOOL=jar
+fi
+
+if [ -z "$JAVAFX_HOME" ] || [ ! -d "$JAVAFX_HOME" ]; then
+    echo "Set JAVAFX_HOME to the lib directory of a JavaFX SDK" >&2
+    exit 1
+fi
+
+# Absolute and in a fixed order: an archive only matches the module path it was made with
+LIBRARIES="$JAVAFX_HOME:$APP_DIR/icons:$APP_DIR/forprinting:$APP_DIR/sqlite_dbc"
+MODULE_PATH="$JAR:$LIBRARIES"
+MAIN_MODULE="HealthPoint/model.Main"
+
+has_aot_cache() {
+    "$JAVA" -XX:+PrintFlagsFinal -version 2>/dev/null | grep -q AOTCacheOutput
+}
+
+# JVM options that use whichever archive exists
+archive_options() {
+    if has_aot_cache && [ -f "$AOT_CACHE" ]; then
+        echo "-XX:AOTCache=$AOT_CACHE"
+    elif [ -f "$CDS_ARCHIVE" ]; then
+        echo "-XX:SharedArchiveFile=$CDS_ARCHIVE"
+    fi
+}
+
+build() {
+    rm -rf "$BUILD_DIR/classes"
+    mkdir -p "$BUILD_DIR/classes"
+    "$JAVAC" -d "$BUILD_DIR/classes" --module-path "$LIBRARIES" $(find "$APP_DIR/src" -name '*.java')
+    # FXML, CSS and images are loaded from the module
+    (cd "$APP_DIR/src" && find view -type f | while read -r resource; do
+        mkdir -p "$BUILD_DIR/classes/$(dirname "$resource")"
+        cp "$resource" "$BUILD_DIR/classes/$resource"
+    done)
+    "$JAR_TOOL" --create --file "$JAR" --main-class model.Main -C "$BUILD_DIR/classes" .
+    # Made for the old jar
+    rm -f "$CDS_ARCHIVE" "$AOT_CACHE"
+    echo "Built $JAR"
+}
+
+# Runs a scripted session in a scratch directory holding a copy of the database
+# $1: training mode (startup or workload), then extra JVM options
+scripted_run() {
+    mode=$1
+    shift
+    work_dir="$BUILD_DIR/run-$mode"
+    rm -rf "$work_dir"
+    mkdir -p "$work_dir"
+    cp "$APP_DIR/Healthpoint.db" "$work_dir/"
+    (cd "$work_dir" && "$JAVA" "$@" -Dhealthpoint.training="$mode" \
+        --module-path "$MODULE_PATH" --module "$MAIN_MODULE")
+}
+
+train() {
+    [ -f "$JAR" ] || build
+    rm -f "$CDS_ARCHIVE" "$AOT_CACHE"
+    if has_aot_cache; then
+        scripted_run workload -XX:AOTCacheOutput="$AOT_CACHE"
+        echo "Recorded $AOT_CACHE"
+    else
+        scripted_run workload -XX:ArchiveClassesAtExit="$CDS_ARCHIVE"
+        echo "Recorded $CDS_ARCHIVE"
+    fi
+}
+
+run() {
+    [ -f "$JAR" ] || build
+    cd "$APP_DIR"
+    exec "$JAVA" $(archive_options) --module-path "$MODULE_PATH" --module "$MAIN_MODULE"
+}
+
+# Prints the median of the numbers on stdin
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { if (NR == 0) print "n/a"; else print values[int((NR + 1) / 2)] }'
+}
+
+# $1: label, $2: number of runs, then JVM options
+measure_runs() {
+    label=$1
+    runs=$2
+    shift 2
+    results="$BUILD_DIR/measure-$label.txt"
+    : > "$results"
+    i=0
+    while [ "$i" -lt "$runs" ]; do
+        scripted_run startup "$@" >> "$results" 2>&1 || true
+        i=$((i + 1))
+    done
+    startup=$(grep '^STARTUP_READY_MS=' "$results" | cut -d= -f2 | median)
+    rss=$(grep '^PEAK_RSS_KB=' "$results" | cut -d= -f2 | median)
+    printf '%-16s startup %6s ms   peak RSS %8s KB   (median of %s runs)\n' "$label" "$startup" "$rss" "$runs"
+}
+
+measure() {
+    runs=${1:-5}
+    [ -f "$JAR" ] || build
+    if [ -z "$(archive_options)" ]; then
+        train
+    fi
+    # One unmeasured run so both sides start with the files in the OS cache
+    scripted_run startup > /dev/null 2>&1 || true
+    measure_runs "default CDS" "$runs"
+    measure_runs "app archive" "$runs" $(archive_options)
+}
+
+case "$1" in
+    build) build ;;
+    train) train ;;
+    run) run ;;
+    measure) measure "$2" ;;
+    *)
+        echo "Usage: $0 build|train|run|measure [runs]" >&2
+        exit 1
+        ;;
+esac
@@ -0,0 +1,236 @@
+package controller;
+
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.concurrent.Task;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.*;
+import model.SalesAnalytics;
+import model.SalesAnalytics.Breakdown;
+import model.SalesAnalytics.Period;
+import model.SalesAnalytics.Report;
+import model.DataAccessExecutor;
+import java.io.IOException;
+import java.net.URL;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.ResourceBundle;
+
+/**
+ * DashboardController
+ *
+ * Shows sales for a chosen range: revenue, orders, items sold, the revenue trend,
+ * top products and the split by category and payment method. Figures come from
+ * SalesAnalytics' rollups, so even "All Time" is a handful of small queries.
+ */
+public class DashboardController implements Initializable, ViewManager.Showable {
+
+    private static final String TODAY = "Today";
+    private static final String LAST_7_DAYS = "Last 7 Days";
+    private static final String LAST_30_DAYS = "Last 30 Days";
+    private static final String THIS_MONTH = "This Month";
+    private static final String THIS_YEAR = "This Year";
+    private static final String ALL_TIME = "All Time";
+    private static final int TOP_PRODUCTS = 10;
+
+    @FXML private Button inventoryButton;
+    @FXML private Button orderButton;
+    @FXML private Button dashboardButton;
+    @FXML private Button recentOrderButton;
+    @FXML private Button logoutButton;
+    @FXML private Button refreshButton;
+
+    @FXML private ComboBox<String> rangeComboBox;
+    @FXML private Label reportStatusLabel;
+    @FXML private Label revenueLabel;
+    @FXML private Label orderCountLabel;
+    @FXML private Label itemsSoldLabel;
+    @FXML private Label averageOrderLabel;
+    @FXML private BarChart<String, Number> trendChart;
+
+    @FXML private TableView<Breakdown> topProductsTable;
+    @FXML private TableColumn<Breakdown, String> productNameColumn;
+    @FXML private TableColumn<Breakdown, Integer> productCountColumn;
+    @FXML private TableColumn<Breakdown, Double> productRevenueColumn;
+    @FXML private TableView<Breakdown> categoryTable;
+    @FXML private TableColumn<Breakdown, String> categoryNameColumn;
+    @FXML private TableColumn<Breakdown, Integer> categoryCountColumn;
+    @FXML private TableColumn<Breakdown, Double> categoryRevenueColumn;
+    @FXML private TableView<Breakdown> paymentTable;
+    @FXML private TableColumn<Breakdown, String> paymentNameColumn;
+    @FXML private TableColumn<Breakdown, Integer> paymentCountColumn;
+    @FXML private TableColumn<Breakdown, Double> paymentRevenueColumn;
+
+    private final DecimalFormat currencyFormat = new DecimalFormat("#,##0.00");
+    private final DecimalFormat countFormat = new DecimalFormat("#,##0");
+    // The report being loaded; a newer range cancels it
+    private Task<Report> reportTask;
+
+    /* Sets up the range choices and tables. Runs once; ViewManager keeps the page. */
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        rangeComboBox.getItems().addAll(TODAY, LAST_7_DAYS, LAST_30_DAYS, THIS_MONTH, THIS_YEAR, ALL_TIME);
+        rangeComboBox.setValue(LAST_30_DAYS);
+        rangeComboBox.setOnAction(event -> loadReport());
+
+        setupBreakdownTable(productNameColumn, productCountColumn, productRevenueColumn);
+        setupBreakdownTable(categoryNameColumn, categoryCountColumn, categoryRevenueColumn);
+        setupBreakdownTable(paymentNameColumn, paymentCountColumn, paymentRevenueColumn);
+        topProductsTable.setPlaceholder(new Label("No sales in this range"));
+        categoryTable.setPlaceholder(new Label("No sales in this range"));
+        paymentTable.setPlaceholder(new Label("No sales in this range"));
+    }
+
+    // Called by ViewManager whenever the page comes back; picks up orders placed since
+    @Override
+    public void onShow() {
+        loadReport();
+    }
+
+    private void setupBreakdownTable(TableColumn<Breakdown, String> nameColumn, TableColumn<Breakdown, Integer> countColumn,
+                                     TableColumn<Breakdown, Double> revenueColumn) {
+        nameColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getName()));
+        countColumn.setCellValueFactory(cellData -> new SimpleIntegerProperty(cellData.getValue().getCount()).asObject());
+        revenueColumn.setCellValueFactory(cellData -> new SimpleDoubleProperty(cellData.getValue().getRevenue()).asObject());
+        revenueColumn.setCellFactory(column -> new TableCell<Breakdown, Double>() {
+            @Override
+            protected void updateItem(Double revenue, boolean empty) {
+                super.updateItem(revenue, empty);
+                setText(empty || revenue == null ? null : "₱" + currencyFormat.format(revenue));
+            }
+        });
+    }
+
+    /* Loads the selected range in the background and shows it when done. */
+    private void loadReport() {
+        if (reportTask != null) {
+            reportTask.cancel();
+        }
+        String range = rangeComboBox.getValue();
+        reportStatusLabel.setText("Loading...");
+        reportTask = DataAccessExecutor.submit("analytics.report", () -> {
+            LocalDate today = LocalDate.now();
+            return SalesAnalytics.getReport(startOf(range, today), today, TOP_PRODUCTS);
+        }, this::showReport, error -> {
+            reportStatusLabel.setText("Could not load sales");
+            System.err.println("Error loading sales report: " + error.getMessage());
+            error.printStackTrace();
+        });
+    }
+
+    // First day of a range ending today; All Time starts at the first sale, so it queries the database
+    private static LocalDate startOf(String range, LocalDate today) throws Exception {
+        switch (range) {
+            case TODAY:
+                return today;
+            case LAST_7_DAYS:
+                return today.minusDays(6);
+            case THIS_MONTH:
+                return today.withDayOfMonth(1);
+            case THIS_YEAR:
+                return today.withDayOfYear(1);
+            case ALL_TIME:
+                LocalDate firstSale = SalesAnalytics.getFirstSaleDate();
+                return firstSale != null && firstSale.isBefore(today) ? firstSale : today;
+            case LAST_30_DAYS:
+            default:
+                return today.minusDays(29);
+        }
+    }
+
+    private void showReport(Report report) {
+        SalesAnalytics.Totals totals = report.getTotals();
+        revenueLabel.setText("₱" + currencyFormat.format(totals.getRevenue()));
+        orderCountLabel.setText(countFormat.format(totals.getOrderCount()));
+        itemsSoldLabel.setText(countFormat.format(totals.getItemsSold()));
+        averageOrderLabel.setText("₱" + currencyFormat.format(totals.getAverageOrderValue()));
+
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        for (Period period : report.getTrend()) {
+            series.getData().add(new XYChart.Data<>(period.getLabel(), period.getRevenue()));
+        }
+        trendChart.getData().setAll(Collections.singletonList(series));
+
+        topProductsTable.getItems().setAll(report.getTopProducts());
+        categoryTable.getItems().setAll(report.getCategories());
+        paymentTable.getItems().setAll(report.getPaymentMethods());
+        reportStatusLabel.setText(report.getFrom() + " to " + report.getTo() + "  (" + report.getElapsedMillis() + " ms)");
+    }
+
+    // Navigation methods
+
+    /* Navigates to the Inventory page. */
+    @FXML
+    private void handleInventoryButton(ActionEvent event) {
+        try {
+            ViewManager.show(ViewManager.Screen.INVENTORY);
+        } catch (IOException e) {
+            showAlert("Error", "Could not load Inventory page: " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    /* Navigates to the Order page. */
+    @FXML
+    private void handleOrderButton(ActionEvent event) {
+        try {
+            ViewManager.show(ViewManager.Screen.ORDER);
+        } catch (IOException e) {
+            showAlert("Error", "Could not load Order page: " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    /* Refreshes the figures without changing page. */
+    @FXML
+    private void handleDashboardButton(ActionEvent event) {
+        // Already on dashboard page
+        loadReport();
+    }
+
+    /* Navigates to the Recent Orders page. */
+    @FXML
+    private void handleRecentOrderButton(ActionEvent event) {
+        try {
+            ViewManager.show(ViewManager.Screen.RECENT_ORDERS);
+        } catch (IOException e) {
+            showAlert("Error", "Could not load Recent Orders page: " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    @FXML
+    private void handleRefreshButton(ActionEvent event) {
+        loadReport();
+    }
+
+    /* Confirms and logs out to the Login page. */
+    @FXML
+    private void handleLogoutButton(ActionEvent event) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Logout Confirmation");
+        alert.setHeaderText("Are you sure you want to logout?");
+        alert.setContentText("You will be redirected to the login page.");
+
+        Optional<ButtonType> result = alert.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            try {
+                ViewManager.show(ViewManager.Screen.LOGIN);
+            } catch (IOException e) {
+                showAlert("Error", "Could not load Login page: " + e.getMessage(), Alert.AlertType.ERROR);
+            }
+        }
+    }
+
+    private void showAlert(String title, String message, Alert.AlertType type) {
+        Alert alert = new Alert(type);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
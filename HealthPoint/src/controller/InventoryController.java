@@ -1,15 +1,10 @@
 package controller;
 
-import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -18,26 +13,40 @@ import javafx.scene.layout.HBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import model.Product;
+import model.ProductRepository;
 import model.SqliteConnection;
+import model.ConnectionLease;
+import model.DataAccessExecutor;
+import model.DataChangeBus;
+import model.ImageCache;
+import model.IoExecutor;
+import model.ProductPageSource;
+import model.ThumbnailStore;
 import model.InventoryIdGenerator;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URL;
-import java.sql.*;
+import java.sql.SQLException;
 import java.text.DecimalFormat;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 //InventoryController
 
 //Controls the Inventory screen: loads products, formats the table, and
 //handles add/update/delete actions, image selection, and page navigation.
  
-public class InventoryController implements Initializable {
+public class InventoryController implements Initializable, ViewManager.Showable, ViewManager.SessionScoped {
     
     // Navigation buttons
     @FXML private Button dashboardbutton;
@@ -76,43 +85,58 @@ public class InventoryController implements Initializable {
     @FXML private TableColumn<Product, String> dateColumn;
     @FXML private TableColumn<Product, Void> actionsColumn;
     
-    // Database connection
-    private Connection connection;
+    // Pagination
+    @FXML private Button firstPageButton;
+    @FXML private Button previousPageButton;
+    @FXML private Button nextPageButton;
+    @FXML private Label pageInfoLabel;
     
-    // Data
+    // Sizes product images are decoded at (see ImageCache)
+    private static final int TABLE_IMAGE_SIZE = 40;
+    private static final int ACTION_ICON_SIZE = 30;
+    private static final int PREVIEW_IMAGE_SIZE = 170;
+    private static final int DIALOG_IMAGE_SIZE = 100;
+    
+    // Data: productsList only ever holds the page on screen, read by keyset from pageSource
     private ObservableList<Product> productsList = FXCollections.observableArrayList();
+    private ProductPageSource pageSource = ProductPageSource.defaultSource();
+    private ProductPageSource.Page currentPage;
+    // The page after currentPage, read in the background while currentPage is on screen
+    private Future<ProductPageSource.Page> prefetchedNext;
+    private ProductPageSource.Page prefetchedFrom;
+    private int catalogSize = -1;
+    private final Map<TableColumn<Product, ?>, ProductPageSource.SortColumn> sortColumns = new HashMap<>();
+    // Re-reading a page patches the rows, so the table keeps its selection and unchanged cells
+    private final DataAccessExecutor.ListLoader<Product> productsLoader =
+        new DataAccessExecutor.ListLoader<>(productsList).reconcileBy(Product::getId, Product::hasSameValues);
+    // Held here because DataChangeBus only keeps a weak reference
+    private final DataChangeBus.ProductListener productChangeListener = this::applyProductChanges;
     private DecimalFormat decimalFormat = new DecimalFormat("#,##0.00");
     private String selectedImagePath = "";
     private Product selectedProduct = null;
     
     /*
-     * Connects to DB, prepares combo boxes/table, loads products, and sets window behavior.
+     * Prepares combo boxes/table and loads products. Runs once; ViewManager keeps the page.
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        // Initialize database connection
-        connection = SqliteConnection.Connector();
-        
         // Setup combo boxes
         setupComboBoxes();
         
         // Setup table
         setupTable();
         
-        // Load products
+        // Load products, then keep them current from DataChangeBus
         loadProducts();
-        
-        // Setup window
-        Platform.runLater(() -> {
-            Stage stage = (Stage) inventorybutton.getScene().getWindow();
-            stage.setResizable(true);
-            stage.centerOnScreen();
-        });
-        
-        // Add shutdown hook to close database connection
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            SqliteConnection.closeConnection();
-        }));
+        DataChangeBus.subscribe(productChangeListener);
+    }
+    
+    /* Re-reads the page on screen when coming back, for writes made by other terminals. */
+    @Override
+    public void onShow() {
+        if (currentPage != null && !productsLoader.isLoading()) {
+            refreshProducts();
+        }
     }
     
     // Navigation methods
@@ -128,11 +152,31 @@ public class InventoryController implements Initializable {
     @FXML
     private void handleOrderButton(ActionEvent event) {
         try {
-            loadScene(event, "/view/fxml/Order.fxml");
+            ViewManager.show(ViewManager.Screen.ORDER);
         } catch (IOException e) {
             showAlert("Error", "Could not load Order page: " + e.getMessage(), Alert.AlertType.ERROR);
         }
     }
+
+    /* Navigates to the sales Dashboard. */
+    @FXML
+    private void handleDashboardButton(ActionEvent event) {
+        try {
+            ViewManager.show(ViewManager.Screen.DASHBOARD);
+        } catch (IOException e) {
+            showAlert("Error", "Could not load Dashboard page: " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    /* Navigates to the Recent Orders page. */
+    @FXML
+    private void handleRecentOrderButton(ActionEvent event) {
+        try {
+            ViewManager.show(ViewManager.Screen.RECENT_ORDERS);
+        } catch (IOException e) {
+            showAlert("Error", "Could not load Recent Orders page: " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
     
     /* Confirms and logs out to the Login page. */
     @FXML
@@ -145,13 +189,19 @@ public class InventoryController implements Initializable {
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
-                loadScene(event, "/view/fxml/LoginPage.fxml");
+                ViewManager.show(ViewManager.Screen.LOGIN);
             } catch (IOException e) {
                 showAlert("Error", "Could not load Login page: " + e.getMessage(), Alert.AlertType.ERROR);
             }
         }
     }
     
+    /* The page is kept for the next login; leave no half-edited product behind. */
+    @Override
+    public void endSession() {
+        clearForm();
+    }
+    
     /* Reloads products from DB and shows a short success notice. */
     @FXML
     private void handleRefreshButton(ActionEvent event) {
@@ -167,56 +217,24 @@ public class InventoryController implements Initializable {
     @FXML
     private void handleAddProduct(ActionEvent event) {
         if (validateForm()) {
-            String sql = "INSERT INTO meds_product (product_id, name, category, price, stock, status, image_path, date_added) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-            
-            PreparedStatement prepare = null;
             try {
-                prepare = connection.prepareStatement(sql);
-                
-                // Generate a numeric ID for the database (the table display will format it with category code)
-                int numericId = InventoryIdGenerator.generateIdForCategory(connection, categoryComboBox.getValue());
-                
-                prepare.setInt(1, numericId);
-                prepare.setString(2, productNameField.getText().trim());
-                prepare.setString(3, categoryComboBox.getValue());
-                prepare.setDouble(4, Double.parseDouble(priceField.getText().trim()));
-                prepare.setInt(5, Integer.parseInt(stockField.getText().trim()));
-                prepare.setString(6, statusComboBox.getValue());
-                prepare.setString(7, selectedImagePath != null ? selectedImagePath : "");
+                // The repository allocates a numeric ID for the category (the table display formats it with the category code)
+                Product product = new Product();
+                product.setName(productNameField.getText().trim());
+                product.setCategory(categoryComboBox.getValue());
+                product.setPrice(Double.parseDouble(priceField.getText().trim()));
+                product.setStock(Integer.parseInt(stockField.getText().trim()));
+                product.setStatus(statusComboBox.getValue());
+                product.setImagePath(selectedImagePath);
                 
-                long currentTimestamp = System.currentTimeMillis() / 1000;
-                prepare.setLong(8, currentTimestamp);
+                // The table picks up the new row from DataChangeBus
+                addButton.setDisable(true);
+                writeProduct("products.insert", () -> ProductRepository.insert(product),
+                    "Product added successfully!", "Failed to add product!", "Error adding product: ",
+                    () -> addButton.setDisable(false), true);
                 
-                int result = prepare.executeUpdate();
-                if (result > 0) {
-                    showAlert("Success", "Product added successfully!", Alert.AlertType.INFORMATION);
-                    clearForm();
-                    
-                    // Force refresh the table data
-                    Platform.runLater(() -> {
-                        loadProducts();
-                        productsTable.refresh();
-                        System.out.println("Table refreshed after adding product");
-                    });
-                } else {
-                    showAlert("Error", "Failed to add product!", Alert.AlertType.ERROR);
-                }
-                
-            } catch (SQLException e) {
-                System.err.println("SQL Error in handleAddProduct: " + e.getMessage());
-                e.printStackTrace();
-                showAlert("Database Error", "Error adding product: " + e.getMessage(), Alert.AlertType.ERROR);
             } catch (NumberFormatException e) {
                 showAlert("Input Error", "Please enter valid numbers for price and stock!", Alert.AlertType.ERROR);
-            } finally {
-                // Always close PreparedStatement
-                if (prepare != null) {
-                    try {
-                        prepare.close();
-                    } catch (SQLException e) {
-                        System.err.println("Error closing PreparedStatement: " + e.getMessage());
-                    }
-                }
             }
         }
     }
@@ -230,41 +248,21 @@ public class InventoryController implements Initializable {
         }
         
         if (validateForm()) {
-            String sql = "UPDATE meds_product SET name=?, category=?, price=?, stock=?, status=?, image_path=? WHERE product_id=?";
-            
-            PreparedStatement prepare = null;
             try {
-                prepare = connection.prepareStatement(sql);
-                prepare.setString(1, productNameField.getText());
-                prepare.setString(2, categoryComboBox.getValue());
-                prepare.setDouble(3, Double.parseDouble(priceField.getText()));
-                prepare.setInt(4, Integer.parseInt(stockField.getText()));
-                prepare.setString(5, statusComboBox.getValue());
-                prepare.setString(6, selectedImagePath);
-                prepare.setInt(7, selectedProduct.getId());
+                Product product = new Product();
+                product.setId(selectedProduct.getId());
+                product.setName(productNameField.getText());
+                product.setCategory(categoryComboBox.getValue());
+                product.setPrice(Double.parseDouble(priceField.getText()));
+                product.setStock(Integer.parseInt(stockField.getText()));
+                product.setStatus(statusComboBox.getValue());
+                product.setImagePath(selectedImagePath);
                 
-                int result = prepare.executeUpdate();
-                if (result > 0) {
-                    showAlert("Success", "Product updated successfully!", Alert.AlertType.INFORMATION);
-                    clearForm();
-                    loadProducts();
-                } else {
-                    showAlert("Error", "Failed to update product!", Alert.AlertType.ERROR);
-                }
+                writeProduct("products.update", () -> ProductRepository.update(product),
+                    "Product updated successfully!", "Failed to update product!", "Error updating product: ", null, true);
                 
-            } catch (SQLException e) {
-                showAlert("Database Error", "Error updating product: " + e.getMessage(), Alert.AlertType.ERROR);
             } catch (NumberFormatException e) {
                 showAlert("Input Error", "Please enter valid numbers for price and stock!", Alert.AlertType.ERROR);
-            } finally {
-           
-                if (prepare != null) {
-                    try {
-                        prepare.close();
-                    } catch (SQLException e) {
-                        System.err.println("Error closing PreparedStatement: " + e.getMessage());
-                    }
-                }
             }
         }
     }
@@ -284,35 +282,41 @@ public class InventoryController implements Initializable {
         
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            String sql = "DELETE FROM meds_product WHERE product_id=?";
-            
-            PreparedStatement prepare = null;
-            try {
-                prepare = connection.prepareStatement(sql);
-                prepare.setInt(1, selectedProduct.getId());
-                
-                int deleteResult = prepare.executeUpdate();
-                if (deleteResult > 0) {
-                    showAlert("Success", "Product deleted successfully!", Alert.AlertType.INFORMATION);
+            int productId = selectedProduct.getId();
+            writeProduct("products.delete", () -> ProductRepository.delete(productId),
+                "Product deleted successfully!", "Failed to delete product!", "Error deleting product: ", null, true);
+        }
+    }
+    
+    /*
+     * Runs a product insert, update or delete on a background worker, so waiting for the
+     * writer and committing never freeze the page, then reports the outcome in an alert.
+     * The table picks up the change from DataChangeBus.
+     * @param onDone Run on the FX thread once the write has finished either way, or null
+     * @param clearOnSuccess Whether to clear the form after a successful write
+     */
+    private void writeProduct(String name, Callable<Boolean> write, String successMessage, String failureMessage,
+                              String errorPrefix, Runnable onDone, boolean clearOnSuccess) {
+        DataAccessExecutor.submit(name, write, written -> {
+            if (onDone != null) {
+                onDone.run();
+            }
+            if (written) {
+                showAlert("Success", successMessage, Alert.AlertType.INFORMATION);
+                if (clearOnSuccess) {
                     clearForm();
-                    loadProducts();
-                } else {
-                    showAlert("Error", "Failed to delete product!", Alert.AlertType.ERROR);
-                }
-                
-            } catch (SQLException e) {
-                showAlert("Database Error", "Error deleting product: " + e.getMessage(), Alert.AlertType.ERROR);
-            } finally {
-                // Always close PreparedStatement
-                if (prepare != null) {
-                    try {
-                        prepare.close();
-                    } catch (SQLException e) {
-                        System.err.println("Error closing PreparedStatement: " + e.getMessage());
-                    }
                 }
+            } else {
+                showAlert("Error", failureMessage, Alert.AlertType.ERROR);
             }
-        }
+        }, error -> {
+            if (onDone != null) {
+                onDone.run();
+            }
+            System.err.println("SQL Error in " + name + ": " + error.getMessage());
+            error.printStackTrace();
+            showAlert("Database Error", errorPrefix + error.getMessage(), Alert.AlertType.ERROR);
+        });
     }
     
     /* Clears all form fields and current selection. */
@@ -337,12 +341,16 @@ public class InventoryController implements Initializable {
         if (selectedFile != null) {
             selectedImagePath = selectedFile.getAbsolutePath();
             
-            try {
-                Image image = new Image(selectedFile.toURI().toString());
-                productImageView.setImage(image);
-            } catch (Exception e) {
-                showAlert("Error", "Could not load image: " + e.getMessage(), Alert.AlertType.ERROR);
-            }
+            String chosenPath = selectedImagePath;
+            // Start the thumbnail now; saving the product finds it by content hash
+            ThumbnailStore.generateAsync(chosenPath);
+            ImageCache.load(chosenPath, PREVIEW_IMAGE_SIZE, image -> {
+                if (image == null) {
+                    showAlert("Error", "Could not load image: " + chosenPath, Alert.AlertType.ERROR);
+                } else if (chosenPath.equals(selectedImagePath)) {
+                    productImageView.setImage(image);
+                }
+            });
         }
     }
     
@@ -350,7 +358,7 @@ public class InventoryController implements Initializable {
     @FXML
     private void handleRemoveImage(ActionEvent event) {
         selectedImagePath = "";
-        productImageView.setImage(new Image(getClass().getResourceAsStream("/view/images/addimage.png")));
+        productImageView.setImage(ImageCache.getPlaceholder(PREVIEW_IMAGE_SIZE));
     }
     
     // Setup methods
@@ -400,14 +408,22 @@ public class InventoryController implements Initializable {
         		"Oral Rehydration Solution"
         );
         
-        // Add listener to category selection to auto-generate product ID
+        // Add listener to category selection to preview the product ID
+        // Read-only and off the FX thread; the real ID is allocated when the product is saved
         categoryComboBox.setOnAction(event -> {
             String selectedCategory = categoryComboBox.getValue();
             if (selectedCategory != null && !selectedCategory.isEmpty()) {
-                // Generate category-based ID and display it in the productIdField
-                String generatedId = InventoryIdGenerator.generateCategoryIdString(connection, selectedCategory);
-                productIdField.setText(generatedId);
-                System.out.println("Generated ID for " + selectedCategory + ": " + generatedId);
+                DataAccessExecutor.submit("products.previewId", () -> {
+                    try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+                        return InventoryIdGenerator.generateCategoryIdString(lease.getConnection(), selectedCategory);
+                    }
+                }, generatedId -> {
+                    // Ignore a preview for a category that is no longer selected
+                    if (selectedCategory.equals(categoryComboBox.getValue())) {
+                        productIdField.setText(generatedId);
+                        System.out.println("Previewed ID for " + selectedCategory + ": " + generatedId);
+                    }
+                }, error -> System.err.println("Could not preview ID for " + selectedCategory + ": " + error.getMessage()));
             }
         });
         
@@ -652,7 +668,8 @@ public class InventoryController implements Initializable {
         });
         
         // Setup image column with explicit cell value factory
-        imageColumn.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(cellData.getValue().getImagePath()));
+        // The thumbnail when one has been generated, so rows never decode the original photo
+        imageColumn.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(ThumbnailStore.displayPath(cellData.getValue())));
         imageColumn.setCellFactory(column -> new TableCell<Product, String>() {
             private final ImageView imageView = new ImageView();
             
@@ -668,23 +685,14 @@ public class InventoryController implements Initializable {
                 if (empty) {
                     setGraphic(null);
                 } else {
-                    try {
-                        if (imagePath != null && !imagePath.isEmpty()) {
-                            File imageFile = new File(imagePath);
-                            if (imageFile.exists()) {
-                                imageView.setImage(new Image(imageFile.toURI().toString()));
-                            } else {
-                                // Use existing image or create a placeholder
-                                setDefaultImage();
-                            }
-                        } else {
-                            // Use existing image or create a placeholder
-                            setDefaultImage();
+                    // Show the placeholder until the product image is decoded off the FX thread
+                    setDefaultImage();
+                    ImageCache.load(imagePath, TABLE_IMAGE_SIZE, image -> {
+                        // The cell may have been reused for another row meanwhile
+                        if (image != null && imagePath.equals(getItem())) {
+                            imageView.setImage(image);
                         }
-                    } catch (Exception e) {
-                        // Use existing image or create a placeholder
-                        setDefaultImage();
-                    }
+                    });
                     setGraphic(imageView);
                     // Center the image in the cell
                     setAlignment(javafx.geometry.Pos.CENTER);
@@ -692,16 +700,9 @@ public class InventoryController implements Initializable {
             }
             
             private void setDefaultImage() {
-                try {
-                    InputStream imageStream = getClass().getResourceAsStream("/view/images/addimage.png");
-                    if (imageStream != null) {
-                        imageView.setImage(new Image(imageStream));
-                    } else {
-                        imageView.setImage(createPlaceholderImage());
-                    }
-                } catch (Exception e) {
-                    imageView.setImage(createPlaceholderImage());
-                }
+                // Shared by every row; only drawn by hand if the bundled placeholder is missing
+                Image placeholder = ImageCache.getPlaceholder(TABLE_IMAGE_SIZE);
+                imageView.setImage(placeholder != null ? placeholder : createPlaceholderImage());
             }
             
             private Image createPlaceholderImage() {
@@ -730,7 +731,7 @@ public class InventoryController implements Initializable {
                 // Create ImageView for update button
                 ImageView updateIcon = new ImageView();
                 try {
-                    updateIcon.setImage(new Image(getClass().getResourceAsStream("/view/images/update_status.png")));
+                    updateIcon.setImage(ImageCache.getResource("/view/images/update_status.png", ACTION_ICON_SIZE));
                     updateIcon.setFitHeight(30);
                     updateIcon.setFitWidth(30);
                     updateIcon.setPreserveRatio(true);
@@ -742,7 +743,7 @@ public class InventoryController implements Initializable {
                 // Create ImageView for delete button
                 ImageView deleteIcon = new ImageView();
                 try {
-                    deleteIcon.setImage(new Image(getClass().getResourceAsStream("/view/images/delete.png")));
+                    deleteIcon.setImage(ImageCache.getResource("/view/images/delete.png", ACTION_ICON_SIZE));
                     deleteIcon.setFitHeight(30);
                     deleteIcon.setFitWidth(30);
                     deleteIcon.setPreserveRatio(true);
@@ -796,6 +797,21 @@ public class InventoryController implements Initializable {
             }
         });
         
+        // Sorting is done by the database over the whole catalog, not just the page on screen
+        sortColumns.put(idColumn, ProductPageSource.SortColumn.ID);
+        sortColumns.put(nameColumn, ProductPageSource.SortColumn.NAME);
+        sortColumns.put(categoryColumn, ProductPageSource.SortColumn.CATEGORY);
+        sortColumns.put(priceColumn, ProductPageSource.SortColumn.PRICE);
+        sortColumns.put(stockColumn, ProductPageSource.SortColumn.STOCK);
+        sortColumns.put(statusColumn, ProductPageSource.SortColumn.STATUS);
+        sortColumns.put(dateColumn, ProductPageSource.SortColumn.DATE_ADDED);
+        imageColumn.setSortable(false);
+        actionsColumn.setSortable(false);
+        productsTable.setSortPolicy(table -> {
+            applySortOrder();
+            return true;
+        });
+        
         // Set the items to the table
         productsTable.setItems(productsList);
         System.out.println("Table items set. ProductsList size: " + productsList.size()); // Debug
@@ -835,62 +851,203 @@ public class InventoryController implements Initializable {
         System.out.println("Table setup completed with row clicking disabled but buttons and scrolling enabled."); // Debug
     }
     
-    /** Loads products from DB into the table's backing list and refreshes the view. */
+    /** Shows the first page of products in the current sort order. */
     private void loadProducts() {
-        productsList.clear();
-        String sql = "SELECT * FROM meds_product ORDER BY product_id DESC";
-        
-        PreparedStatement prepare = null;
-        ResultSet result = null;
-        
-        try {
-            prepare = connection.prepareStatement(sql);
-            result = prepare.executeQuery();
-            
-            int count = 0;
-            while (result.next()) {
-                Product product = new Product(
-                    result.getInt("product_id"),
-                    result.getString("name"),
-                    result.getString("category"),
-                    result.getDouble("price"),
-                    result.getInt("stock"),
-                    result.getString("status"),
-                    result.getString("image_path"),
-                    result.getLong("date_added") 
-                );
-                productsList.add(product);
-                count++;
-                System.out.println("Loaded product: " + product.getName()); 
+        showPage("products.firstPage", pageSource::firstPage, true, true);
+    }
+    
+    /*
+     * Replaces the table contents with one page. The query runs on a background worker;
+     * a newer page load cancels one still in flight.
+     * @param scrollToTop false when re-reading the page in place
+     * @param withCount true to count the catalog alongside; the page and the count are
+     *                  shown together, or the load fails as a whole
+     */
+    private void showPage(String name, Callable<ProductPageSource.Page> query, boolean scrollToTop, boolean withCount) {
+        AtomicReference<ProductPageSource.Page> loaded = new AtomicReference<>();
+        AtomicReference<Integer> counted = new AtomicReference<>();
+        setPageButtonsDisabled(true);
+        productsLoader.load(withCount ? "products.pageWithCount" : name, () -> {
+            if (withCount) {
+                Map.Entry<ProductPageSource.Page, Integer> both = IoExecutor.forkBoth(
+                    name, query, "products.count", ProductPageSource::countAll, Map::entry);
+                loaded.set(both.getKey());
+                counted.set(both.getValue());
+            } else {
+                loaded.set(query.call());
             }
-            
-            System.out.println("Total products loaded: " + count); 
-            System.out.println("ProductsList size: " + productsList.size()); 
-            
-            // Refresh the table view
-            productsTable.refresh();
-            
-        } catch (SQLException e) {
-            System.err.println("SQL Error in loadProducts: " + e.getMessage());
-            e.printStackTrace();
-            showAlert("Database Error", "Error loading products: " + e.getMessage(), Alert.AlertType.ERROR);
-        } finally {
-          
-            if (result != null) {
-                try {
-                    result.close();
-                } catch (SQLException e) {
-                    System.err.println("Error closing ResultSet: " + e.getMessage());
-                }
+            return loaded.get().getProducts();
+        }, () -> {
+            currentPage = loaded.get();
+            if (withCount) {
+                catalogSize = counted.get();
+            }
+            updatePageControls();
+            prefetchNextPage();
+            if (scrollToTop) {
+                productsTable.scrollTo(0);
             }
-            if (prepare != null) {
+            System.out.println("Showing inventory page " + (currentPage.getIndex() + 1) + " (" + productsList.size() + " products)");
+        }, error -> {
+            updatePageControls();
+            System.err.println("SQL Error in loadProducts: " + error.getMessage());
+            error.printStackTrace();
+            showAlert("Database Error", "Error loading products: " + error.getMessage(), Alert.AlertType.ERROR);
+        });
+    }
+    
+    // Reads the next page now so the Next button usually has nothing to wait for
+    private void prefetchNextPage() {
+        ProductPageSource.Page page = currentPage;
+        ProductPageSource source = pageSource;
+        prefetchedFrom = page;
+        prefetchedNext = page != null && page.hasNext()
+            ? IoExecutor.submit("products.prefetchPage", () -> source.nextPage(page))
+            : null;
+    }
+    
+    // One aggregate row from the database; nothing beyond the shown page is held in memory
+    private void refreshCatalogSize() {
+        DataAccessExecutor.submit("products.count", ProductPageSource::countAll, count -> {
+            catalogSize = count;
+            updatePageControls();
+        }, error -> System.err.println("Could not count products: " + error.getMessage()));
+    }
+    
+    /* Shows the next page, using the prefetched one when it is ready. */
+    @FXML
+    private void handleNextPage(ActionEvent event) {
+        ProductPageSource.Page page = currentPage;
+        if (page == null || !page.hasNext()) {
+            return;
+        }
+        ProductPageSource source = pageSource;
+        Future<ProductPageSource.Page> prefetched = prefetchedFrom == page ? prefetchedNext : null;
+        showPage("products.nextPage", () -> {
+            if (prefetched != null) {
                 try {
-                    prepare.close();
-                } catch (SQLException e) {
-                    System.err.println("Error closing PreparedStatement: " + e.getMessage());
+                    return prefetched.get();
+                } catch (ExecutionException e) {
+                    System.err.println("Prefetched page failed, reading it again: " + e.getCause());
                 }
             }
+            return source.nextPage(page);
+        }, true, false);
+    }
+    
+    @FXML
+    private void handlePreviousPage(ActionEvent event) {
+        ProductPageSource.Page page = currentPage;
+        if (page == null || !page.hasPrevious()) {
+            return;
+        }
+        ProductPageSource source = pageSource;
+        showPage("products.previousPage", () -> source.previousPage(page), true, false);
+    }
+    
+    @FXML
+    private void handleFirstPage(ActionEvent event) {
+        loadProducts();
+    }
+    
+    // Called by the table's sort policy; reloads from page one when the sort changed
+    private void applySortOrder() {
+        ProductPageSource.SortColumn column = ProductPageSource.SortColumn.ID;
+        boolean ascending = false;
+        if (!productsTable.getSortOrder().isEmpty()) {
+            TableColumn<Product, ?> sorted = productsTable.getSortOrder().get(0);
+            if (sortColumns.containsKey(sorted)) {
+                column = sortColumns.get(sorted);
+                ascending = sorted.getSortType() == TableColumn.SortType.ASCENDING;
+            }
+        }
+        if (column != pageSource.getSortColumn() || ascending != pageSource.isAscending()) {
+            pageSource = new ProductPageSource(column, ascending, ProductPageSource.DEFAULT_PAGE_SIZE);
+            showPage("products.firstPage", pageSource::firstPage, true, false);
+        }
+    }
+    
+    private void updatePageControls() {
+        ProductPageSource.Page page = currentPage;
+        if (page == null) {
+            setPageButtonsDisabled(true);
+            return;
+        }
+        firstPageButton.setDisable(!page.hasPrevious());
+        previousPageButton.setDisable(!page.hasPrevious());
+        nextPageButton.setDisable(!page.hasNext());
+        
+        int from = page.getIndex() * pageSource.getPageSize() + 1;
+        int to = page.getIndex() * pageSource.getPageSize() + productsList.size();
+        String range = productsList.isEmpty() ? "No products" : String.format("%,d-%,d", from, to);
+        pageInfoLabel.setText(catalogSize >= 0 ? range + " of " + String.format("%,d", catalogSize) : range);
+    }
+    
+    private void setPageButtonsDisabled(boolean disabled) {
+        firstPageButton.setDisable(disabled);
+        previousPageButton.setDisable(disabled);
+        nextPageButton.setDisable(disabled);
+    }
+    
+    /*
+     * Patches the page on screen with products added, updated or deleted anywhere in the
+     * app (this screen, the update dialog, checkouts). Edited and deleted rows are patched
+     * in place; an added product may belong on this page, and an edit that changes the
+     * sorted column moves its row, so in those cases the page is read again.
+     */
+    private void applyProductChanges(List<DataChangeBus.ProductChange> changes) {
+        if (productsLoader.isLoading() || currentPage == null) {
+            // The load in flight may have read the table before these changes; read it again
+            refreshProducts();
+            return;
+        }
+        boolean added = false;
+        boolean moved = false;
+        boolean countChanged = false;
+        for (DataChangeBus.ProductChange change : changes) {
+            int index = indexOfProduct(change.getProductId());
+            switch (change.getType()) {
+                case ADDED:
+                    added = true;
+                    countChanged = true;
+                    break;
+                case REMOVED:
+                    if (index >= 0) {
+                        productsList.remove(index);
+                    }
+                    countChanged = true;
+                    break;
+                default:
+                    if (index >= 0) {
+                        if (pageSource.movesInOrder(productsList.get(index), change.getProduct())) {
+                            moved = true;
+                        } else {
+                            productsList.set(index, change.getProduct());
+                        }
+                    }
+                    break;
+            }
         }
+        if (added || moved || productsList.isEmpty()) {
+            refreshProducts();
+            return;
+        }
+        // The prefetched page may hold the old rows
+        prefetchNextPage();
+        if (countChanged) {
+            refreshCatalogSize();
+        } else {
+            updatePageControls();
+        }
+    }
+    
+    private int indexOfProduct(int productId) {
+        for (int i = 0; i < productsList.size(); i++) {
+            if (productsList.get(i).getId() == productId) {
+                return i;
+            }
+        }
+        return -1;
     }
     
     /** Copies selected product to the form, formats its ID, and previews its image. */
@@ -909,17 +1066,15 @@ public class InventoryController implements Initializable {
         
         if (product.getImagePath() != null && !product.getImagePath().isEmpty()) {
             selectedImagePath = product.getImagePath();
+            String editedPath = selectedImagePath;
             
-            try {
-                File imageFile = new File(selectedImagePath);
-                if (imageFile.exists()) {
-                    productImageView.setImage(new Image(imageFile.toURI().toString()));
-                } else {
-                    productImageView.setImage(new Image(getClass().getResourceAsStream("/view/images/addimage.png")));
+            productImageView.setImage(ImageCache.getPlaceholder(PREVIEW_IMAGE_SIZE));
+            ImageCache.load(ThumbnailStore.displayPath(product), PREVIEW_IMAGE_SIZE, image -> {
+                // Another product may have been selected meanwhile
+                if (image != null && editedPath.equals(selectedImagePath)) {
+                    productImageView.setImage(image);
                 }
-            } catch (Exception e) {
-                productImageView.setImage(new Image(getClass().getResourceAsStream("/view/images/addimage.png")));
-            }
+            });
         } else {
             handleRemoveImage(null);
         }
@@ -1011,22 +1166,14 @@ public class InventoryController implements Initializable {
         productsTable.getSelectionModel().clearSelection();
     }
     
-    /* Convenience wrapper to reload products. */
+    /* Reads the page on screen again, keeping the sort and position. */
     private void refreshProducts() {
-        loadProducts();
+        ProductPageSource.Page page = currentPage;
+        ProductPageSource source = pageSource;
+        showPage("products.reloadPage", () -> source.reload(page), false, true);
     }
     
     // Utility methods
-    /* Loads another FXML view into the current stage. */
-    private void loadScene(ActionEvent event, String fxmlPath) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource(fxmlPath));
-        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root);
-        stage.setTitle("Health Point System");
-        stage.setScene(scene);
-        stage.show();
-    }
-    
     /* Shows an alert with title/message/type. */
     private void showAlert(String title, String message, Alert.AlertType type) {
         Alert alert = new Alert(type);
@@ -1098,17 +1245,14 @@ public class InventoryController implements Initializable {
         imageView.setFitWidth(100);
         imageView.setPreserveRatio(true);
         
-        // Load current image or set placeholder
-        if (product.getImagePath() != null && !product.getImagePath().isEmpty()) {
-            File imageFile = new File(product.getImagePath());
-            if (imageFile.exists()) {
-                imageView.setImage(new Image(imageFile.toURI().toString()));
-            } else {
-                imageView.setImage(new Image(getClass().getResourceAsStream("/view/images/addimage.png")));
+        // Placeholder until the current image is loaded
+        imageView.setImage(ImageCache.getPlaceholder(DIALOG_IMAGE_SIZE));
+        String currentPath = product.getImagePath();
+        ImageCache.load(ThumbnailStore.displayPath(product), DIALOG_IMAGE_SIZE, image -> {
+            if (image != null && currentPath.equals(product.getImagePath())) {
+                imageView.setImage(image);
             }
-        } else {
-            imageView.setImage(new Image(getClass().getResourceAsStream("/view/images/addimage.png")));
-        }
+        });
         
         // Button to select new image
         Button selectImageButton = new Button("Select Image");
@@ -1124,7 +1268,12 @@ public class InventoryController implements Initializable {
             
             if (selectedFile != null) {
                 String selectedImagePath = selectedFile.getAbsolutePath();
-                imageView.setImage(new Image(selectedFile.toURI().toString()));
+                ThumbnailStore.generateAsync(selectedImagePath);
+                ImageCache.load(selectedImagePath, DIALOG_IMAGE_SIZE, image -> {
+                    if (image != null && selectedImagePath.equals(product.getImagePath())) {
+                        imageView.setImage(image);
+                    }
+                });
                 
                 // Optionally, store the selected image path in the product object
                 product.setImagePath(selectedImagePath);
@@ -1134,7 +1283,7 @@ public class InventoryController implements Initializable {
         // Button to remove image
         Button removeImageButton = new Button("Remove Image");
         removeImageButton.setOnAction(event -> {
-            imageView.setImage(new Image(getClass().getResourceAsStream("/view/images/addimage.png")));
+            imageView.setImage(ImageCache.getPlaceholder(DIALOG_IMAGE_SIZE));
             product.setImagePath("");
         });
         
@@ -1186,38 +1335,8 @@ public class InventoryController implements Initializable {
         // Show the dialog and wait for result
         dialog.showAndWait().ifPresent(updatedProduct -> {
             // Update the product in the database
-            String sql = "UPDATE meds_product SET name=?, category=?, price=?, stock=?, status=?, image_path=? WHERE product_id=?";
-            
-            PreparedStatement prepare = null;
-            try {
-                prepare = connection.prepareStatement(sql);
-                prepare.setString(1, updatedProduct.getName());
-                prepare.setString(2, updatedProduct.getCategory());
-                prepare.setDouble(3, updatedProduct.getPrice());
-                prepare.setInt(4, updatedProduct.getStock());
-                prepare.setString(5, updatedProduct.getStatus());
-                prepare.setString(6, updatedProduct.getImagePath());
-                prepare.setInt(7, updatedProduct.getId());
-                
-                int result = prepare.executeUpdate();
-                if (result > 0) {
-                    showAlert("Success", "Product updated successfully!", Alert.AlertType.INFORMATION);
-                    loadProducts();
-                } else {
-                    showAlert("Error", "Failed to update product!", Alert.AlertType.ERROR);
-                }
-                
-            } catch (SQLException e) {
-                showAlert("Database Error", "Error updating product: " + e.getMessage(), Alert.AlertType.ERROR);
-            } finally {
-                if (prepare != null) {
-                    try {
-                        prepare.close();
-                    } catch (SQLException e) {
-                        System.err.println("Error closing PreparedStatement: " + e.getMessage());
-                    }
-                }
-            }
+            writeProduct("products.update", () -> ProductRepository.update(updatedProduct),
+                "Product updated successfully!", "Failed to update product!", "Error updating product: ", null, false);
         });
     }
     
@@ -1264,4 +1383,4 @@ public class InventoryController implements Initializable {
         
         return true;
     }
-}
+}
@@ -1,31 +1,29 @@
 package controller;
 
 import javafx.application.Platform;
-
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.paint.Color;
-import javafx.stage.Stage;
+import javafx.scene.paint.Paint;
+import model.DataAccessExecutor;
 import model.LoginModel;
+import model.StartupOrchestrator;
 
 import java.io.IOException;
 import java.net.URL;
-import java.sql.SQLException;
 import java.util.ResourceBundle;
 
 /*
  * Handles the Login page: validates input, checks credentials via LoginModel,
  * and navigates to the Dashboard on success.
  */
-public class LoginPageController implements Initializable {
-    public LoginModel loginmodel = new LoginModel();
+public class LoginPageController implements Initializable, ViewManager.Showable {
+    // Created once StartupOrchestrator has opened the database, so the login page shows without waiting
+    public LoginModel loginmodel;
     
     @FXML
     private Label isConnected;
@@ -35,26 +33,49 @@ public class LoginPageController implements Initializable {
     
     @FXML
     private TextField PasswordField;
+    
+    @FXML
+    private Button loginButton;
+    
+    // The status label's colour before any error turned it red
+    private Paint statusTextFill;
  
     @Override
     
     public void initialize(URL location, ResourceBundle resources) {
+    	// Status and fields are set in onShow(); ViewManager sizes and centers the window
+    	statusTextFill = isConnected.getTextFill();
     	
-    	if(loginmodel.isDbConnected()) {
+    	StartupOrchestrator.databaseReady().whenComplete((ignored, error) -> Platform.runLater(() -> {
+    		// Exits if the database could not be opened, as it always has
+    		loginmodel = new LoginModel();
+    		showConnectionStatus();
+    	}));
+    }
+    
+    /*
+     * Called by ViewManager each time the Login page is shown (startup and logout):
+     * the page is reused, so the previous user's input is cleared here.
+     */
+    @Override
+    public void onShow() {
+    	UsernameField.clear();
+    	PasswordField.clear();
+    	UsernameField.setStyle("");
+    	PasswordField.setStyle("");
+    	showConnectionStatus();
+    	UsernameField.requestFocus();
+    }
+    
+    private void showConnectionStatus() {
+    	isConnected.setTextFill(statusTextFill);
+    	if (loginmodel == null) {
+    		isConnected.setText("Connecting to database...");
+    	} else if(loginmodel.isDbConnected()) {
     		isConnected.setText("Database is Connected");
     	}else {
     		isConnected.setText("Database is not Connected");
     	}
-    	
-    	// Center the login window after UI loads
-        Platform.runLater(() -> {
-            // Get the stage from any FXML component
-            Stage stage = (Stage) UsernameField.getScene().getWindow();
-            if (stage != null) {
-                stage.centerOnScreen();
-                stage.setResizable(false); // Keep login window non-resizable for consistency
-            }
-        });
     }
     
     /*
@@ -103,7 +124,7 @@ public class LoginPageController implements Initializable {
     
      //Attempts login using the provided credentials.
      //Validates inputs
-     //Calls LoginModel.isLogin
+     //Calls LoginModel.isLogin on a background worker
      //Navigates to Dashboard on success, otherwise shows an error and highlights fields.
      
     public void Login (ActionEvent event) {
@@ -118,19 +139,21 @@ public class LoginPageController implements Initializable {
         UsernameField.setStyle("");
         PasswordField.setStyle("");
         
-    	try {
-            if(loginmodel.isLogin(username.trim(), password)) {
+        if (loginmodel == null) {
+            isConnected.setText("Still connecting to the database. Please try again in a moment.");
+            isConnected.setTextFill(Color.RED);
+            return;
+        }
+        
+        // Disabled while the credentials are checked, so a second click can't start another check
+        loginButton.setDisable(true);
+        DataAccessExecutor.submit("login.check", () -> loginmodel.isLogin(username.trim(), password), loggedIn -> {
+            loginButton.setDisable(false);
+            if (loggedIn) {
                 // Navigate to Inventory
                 try {
-                    FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/fxml/Inventory.fxml"));
-                    Parent root = loader.load();
-                    
-                    Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-                    Scene scene = new Scene(root); 
-                    stage.setScene(scene);
-                    stage.setTitle("Health Point System");
-                    stage.setResizable(true); 
-                    stage.show();
+                    // Usually preloaded while the login form was open
+                    ViewManager.show(ViewManager.Screen.INVENTORY);
                     
                 } catch (IOException e) {
                     isConnected.setText("Error loading dashboard. Please try again.");
@@ -146,11 +169,12 @@ public class LoginPageController implements Initializable {
                 UsernameField.setStyle("-fx-border-color: red; -fx-border-width: 1px;");
                 PasswordField.setStyle("-fx-border-color: red; -fx-border-width: 1px;");
             }
-        } catch (SQLException e) {
+        }, error -> {
+            loginButton.setDisable(false);
             isConnected.setText("Database connection error. Please try again later.");
             isConnected.setTextFill(Color.RED);
-            e.printStackTrace();
-        }
+            error.printStackTrace();
+        });
     }
     
 }
\ No newline at end of file
@@ -1,32 +1,37 @@
 package controller;
 
+import javafx.animation.PauseTransition;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.collections.FXCollections;
 
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.layout.FlowPane;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import model.*;
 import java.io.IOException;
 import java.net.URL;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.DecimalFormat;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
  /**
  * OrderController
@@ -35,7 +40,9 @@ import java.util.ResourceBundle;
  * handles search/filtering, manages medication cart, processes prescriptions,
  * updates inventory stock, and generates receipts.
  */
-public class OrderController implements Initializable {
+public class OrderController implements Initializable, ViewManager.Showable, ViewManager.SessionScoped {
+
+    private static final long SEARCH_DEBOUNCE_MILLIS = 150;
 
     // Navigation buttons
     @FXML private Button dashboardButton;
@@ -57,8 +64,7 @@ public class OrderController implements Initializable {
     @FXML private Button clearCartButton;
 
     // Medication Cards Container
-    @FXML private ScrollPane medicationScrollPane;
-    @FXML private FlowPane medicationCardsContainer;
+    @FXML private ProductCardGrid medicationCardGrid;
 
     // Prescription Cart Table
     @FXML private TableView<OrderItem> prescriptionCartTable;
@@ -70,8 +76,36 @@ public class OrderController implements Initializable {
 
     // Data collections
     private ObservableList<Product> availableMedications = FXCollections.observableArrayList();
+    // Reloads patch the list, so the search index and cards only redo products that changed
+    private final DataAccessExecutor.ListLoader<Product> medicationsLoader =
+        new DataAccessExecutor.ListLoader<>(availableMedications).reconcileBy(Product::getId, Product::hasSameValues);
+    // Held here because DataChangeBus only keeps a weak reference
+    private final DataChangeBus.ProductListener productChangeListener = this::applyProductChanges;
+    // Mirrors availableMedications for the search field and category filter
+    private final MedicationSearchIndex searchIndex = new MedicationSearchIndex();
+    // True when availableMedications holds every sellable product, so searchIndex can answer searches
+    private boolean catalogLoaded = false;
+    // The page last shown (it knows its search and where the next page starts); searchGeneration drops stale pages
+    private ProductSearchService.SearchPage currentPage;
+    private int searchGeneration = 0;
+    private boolean loadingMore = false;
+    // Typing restarts this; the search runs once the field has been still for SEARCH_DEBOUNCE_MILLIS
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(SEARCH_DEBOUNCE_MILLIS));
+    // When the input now being searched for was entered (0: no search pending), for searchLatency
+    private long searchInputNanos = 0;
+    private final LatencyStats searchLatency = LatencyStats.get("search.keystrokeToRender");
     private ObservableList<OrderItem> prescriptionCart = FXCollections.observableArrayList();
     private DecimalFormat currencyFormat = new DecimalFormat("#0.00");
+    
+    // Identifies this terminal's cart in stock_reservations
+    private final String cartId = UUID.randomUUID().toString();
+    // Bumped on every logout so holds still being taken for the last user are handed back
+    private int session;
+    // The cart is locked while its order is saved: the save releases every hold of this cart,
+    // so a line added meanwhile would lose its stock and then vanish with the cleared form
+    private final BooleanProperty savingOrder = new SimpleBooleanProperty(false);
+    // Holds still being taken; the order waits for them so none lands in the cart mid-save
+    private final IntegerProperty pendingReservations = new SimpleIntegerProperty(0);
 
     
      //Initializes the UI and data bindings for the Order screen.
@@ -84,92 +118,62 @@ public class OrderController implements Initializable {
         
         initializeComboBoxes();
         initializePrescriptionCartTable();
+        medicationCardGrid.setOrderController(this);
+        medicationCardGrid.setOnScrolledToEnd(this::loadMoreMedications);
         loadAvailableMedications();
         setupEventHandlers();
+        processPrescriptionButton.disableProperty().bind(savingOrder.or(pendingReservations.greaterThan(0)));
+        clearCartButton.disableProperty().bind(savingOrder);
         clearPrescriptionForm();
+        // Stock and product edits arrive from DataChangeBus; no reload needed after a checkout
+        DataChangeBus.subscribe(productChangeListener);
+    }
+
+    // Called by ViewManager whenever the page comes back; picks up other terminals' stock changes
+    // (cheap: the catalog cache only reads rows changed since the last visit)
+    @Override
+    public void onShow() {
+        if (!medicationsLoader.isLoading()) {
+            loadAvailableMedications();
+        }
     }
     
      
       //Persists the current cart as an order and its items, and updates inventory stock
-      //Uses a transaction and rolls back on failure
+      //Header, items and stock updates are sent as JDBC batches in one transaction
+      //and the cart's stock holds are released in the same transaction
+      //Runs on an I/O thread; onSaved is called on the FX thread once the order is committed
      
-    private boolean placeOrder() {
-        Connection connection = null;
-        PreparedStatement orderStmt = null;
-        PreparedStatement orderItemsStmt = null;
+    private void placeOrder(Consumer<Order> onSaved) {
+        List<OrderItem> items = new ArrayList<>(prescriptionCart);
+        Order order = new Order(
+            OrderIdGenerator.generateOrderId(),
+            patientNameField.getText().trim(),
+            paymentMethodComboBox.getValue(),
+            "Completed",
+            items.stream().mapToDouble(OrderItem::getTotalPrice).sum(),
+            LocalDateTime.now(),
+            items,
+            null
+        );
         
-        try {
-            connection = SqliteConnection.Connector();
-            connection.setAutoCommit(false);
-            
-            LocalDateTime now = LocalDateTime.now();
-            String orderDate = now.toLocalDate().toString();
-            String orderTime = now.toLocalTime().toString();
-            
-            String orderId = OrderIdGenerator.generateOrderId();
-            
-            String orderSql = "INSERT INTO orders (order_id, customer_name, payment_method, order_status, total_amount, order_date, order_time) VALUES (?, ?, ?, ?, ?, ?, ?)";
-            orderStmt = connection.prepareStatement(orderSql);
-            
-            orderStmt.setString(1, orderId);
-            orderStmt.setString(2, patientNameField.getText().trim());
-            orderStmt.setString(3, paymentMethodComboBox.getValue());
-            orderStmt.setString(4, "Completed");
-            orderStmt.setDouble(5, prescriptionCart.stream().mapToDouble(OrderItem::getTotalPrice).sum());
-            orderStmt.setString(6, orderDate);
-            orderStmt.setString(7, orderTime);
-            
-            orderStmt.executeUpdate();
-            
-            String orderItemsSql = "INSERT INTO order_items (order_id, product_id, product_name, quantity, unit_price, total_price) VALUES (?, ?, ?, ?, ?, ?)";
-            orderItemsStmt = connection.prepareStatement(orderItemsSql);
-            
-            String updateStockSql = "UPDATE meds_product SET stock = stock - ? WHERE product_id = ?";
-            
-            try (PreparedStatement updateStockStmt = connection.prepareStatement(updateStockSql)) {
-                for (OrderItem item : prescriptionCart) {
-                    // Insert order item
-                    orderItemsStmt.setString(1, orderId);
-                    orderItemsStmt.setInt(2, item.getProductId());
-                    orderItemsStmt.setString(3, item.getProductName());
-                    orderItemsStmt.setInt(4, item.getQuantity());
-                    orderItemsStmt.setDouble(5, item.getUnitPrice());
-                    orderItemsStmt.setDouble(6, item.getTotalPrice());
-                    orderItemsStmt.executeUpdate();
-                    
-                    // Update medication stock
-                    updateStockStmt.setInt(1, item.getQuantity());
-                    updateStockStmt.setInt(2, item.getProductId());
-                    updateStockStmt.executeUpdate();
-                }
-            }
-            
-            connection.commit();
-            return true;
-            
-        } catch (SQLException e) {
-            if (connection != null) {
-                try {
-                    connection.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
-            }
-            showAlert(Alert.AlertType.ERROR, "Database Error", "Failed to process prescription: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        } finally {
+        savingOrder.set(true);
+        DataAccessExecutor.submit("orders.place", () -> OrderRepository.placeOrder(order, cartId), result -> {
+            System.out.println("Order " + order.getId() + " saved: " + result);
             try {
-                if (orderStmt != null) orderStmt.close();
-                if (orderItemsStmt != null) orderItemsStmt.close();
-                if (connection != null) {
-                    connection.setAutoCommit(true);
-                    connection.close();
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
+                onSaved.accept(order);
+            } finally {
+                savingOrder.set(false);
             }
-        }
+        }, error -> {
+            savingOrder.set(false);
+            if (error instanceof StockConflictException) {
+                showStockConflicts(((StockConflictException) error).getConflictingItems());
+            } else {
+                showAlert(Alert.AlertType.ERROR, "Database Error", "Failed to process prescription: " + error.getMessage());
+                error.printStackTrace();
+            }
+        });
     }
 
     // Populates filter/order/payment combo boxes with defaults
@@ -268,6 +272,7 @@ public class OrderController implements Initializable {
                 removeButton.setStyle("-fx-background-color: linear-gradient(to bottom, #EF5350, #D32F2F); " +
                                     "-fx-background-radius: 8; -fx-text-fill: white; -fx-cursor: hand; -fx-font-size: 12px;");
                 removeButton.setPrefWidth(80);
+                removeButton.disableProperty().bind(savingOrder);
                 removeButton.setOnAction(event -> {
                     OrderItem item = getTableView().getItems().get(getIndex());
                     removeFromCart(item);
@@ -297,13 +302,34 @@ public class OrderController implements Initializable {
     // Registers listeners for medication search, category filter, and cart changes
     @SuppressWarnings("unused")
     private void setupEventHandlers() {
-        // Medication search functionality
+        // Keep the search index in step with the product list
+        availableMedications.addListener((javafx.collections.ListChangeListener.Change<? extends Product> change) -> {
+            while (change.next()) {
+                for (Product removed : change.getRemoved()) {
+                    searchIndex.remove(removed.getId());
+                }
+                for (Product added : change.getAddedSubList()) {
+                    searchIndex.upsert(added);
+                }
+            }
+        });
+
+        // Medication search: one search per pause in typing, not per character
+        searchDebounce.setOnFinished(event -> filterMedications());
         medicationSearchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            filterMedications();
+            searchInputNanos = System.nanoTime();
+            // A database search still running for older text is dropped now, not when the next one starts
+            if (!catalogLoaded && hasSearchCriteria()) {
+                medicationsLoader.cancel();
+                searchGeneration++;
+            }
+            searchDebounce.playFromStart();
         });
 
-        // Category filter functionality
+        // Category filter: a single choice, so it applies right away
         medicationCategoryFilter.valueProperty().addListener((observable, oldValue, newValue) -> {
+            searchInputNanos = System.nanoTime();
+            searchDebounce.stop();
             filterMedications();
         });
 
@@ -313,104 +339,159 @@ public class OrderController implements Initializable {
         });
     }
 
-    // Loads only available, in-stock products from DB and renders product cards
+    // Loads available, in-stock products and renders product cards
+    // The shared ProductCatalogCache answers when it holds the catalog (only changed rows are read);
+    // otherwise the first page comes from the database. Runs on a background worker
+    // If the whole catalog is loaded, searching stays in memory; otherwise it goes to the database
     private void loadAvailableMedications() {
-        availableMedications.clear();
-        Connection connection = null;
-        
-        try {
-            connection = SqliteConnection.Connector();
-            String query = "SELECT * FROM meds_product WHERE status = 'Available' AND stock > 0";
-            
-            PreparedStatement statement = connection.prepareStatement(query);
-            ResultSet resultSet = statement.executeQuery();
-            
-            while (resultSet.next()) {
-                // Handle date_added as TEXT instead of TIMESTAMP
-                String dateAddedString = resultSet.getString("date_added");
-                LocalDateTime dateAdded;
-                
-                try {
-                    // Try to parse as LocalDate first, then convert to LocalDateTime
-                    if (dateAddedString != null && !dateAddedString.isEmpty()) {
-                        if (dateAddedString.contains("T") || dateAddedString.contains(" ")) {
-                            // Full datetime string
-                            dateAdded = LocalDateTime.parse(dateAddedString.replace(" ", "T"));
-                        } else {
-                            // Just date string, add time
-                            dateAdded = LocalDate.parse(dateAddedString).atStartOfDay();
-                        }
-                    } else {
-                        dateAdded = LocalDateTime.now();
+        int generation = ++searchGeneration;
+        AtomicReference<ProductSearchService.SearchPage> loaded = new AtomicReference<>();
+        medicationsLoader.load("products.searchAvailable", () -> {
+            ProductCatalogCache.Snapshot snapshot = ProductCatalogCache.getInstance().refresh();
+            if (snapshot != null) {
+                return snapshot.getSellable();
+            }
+            loaded.set(ProductSearchService.searchAvailable(null, null));
+            return loaded.get().getProducts();
+        }, () -> {
+            showPage(generation, loaded.get());
+            catalogLoaded = currentPage == null || !currentPage.hasMore();
+            if (catalogLoaded) {
+                filterMedications();
+            } else if (hasSearchCriteria()) {
+                searchMedications();
+            } else {
+                // First page of a catalog too large to hold; filterMedications() would load it again
+                loadProductCards();
+                searchRendered();
+            }
+        }, this::showLoadError);
+    }
+
+    // Ranked full-text search in the database, for catalogs larger than one page
+    private void searchMedications() {
+        int generation = ++searchGeneration;
+        String query = medicationSearchField.getText();
+        String category = medicationCategoryFilter.getValue();
+        AtomicReference<ProductSearchService.SearchPage> loaded = new AtomicReference<>();
+        medicationsLoader.load("products.searchAvailable", () -> {
+            loaded.set(ProductSearchService.searchAvailable(query, category));
+            return loaded.get().getProducts();
+        }, () -> {
+            showPage(generation, loaded.get());
+            loadProductCards();
+            searchRendered();
+        }, this::showLoadError);
+    }
+
+    // Appends the next page of the current listing when the grid is scrolled to its end
+    // Pages continue after the last product shown (keyset), so sales and new products in between don't shift them
+    private void loadMoreMedications() {
+        if (currentPage == null || !currentPage.hasMore() || loadingMore) {
+            return;
+        }
+        loadingMore = true;
+        int generation = searchGeneration;
+        ProductSearchService.SearchPage previous = currentPage;
+        DataAccessExecutor.submit("products.searchAvailable", () -> ProductSearchService.nextPage(previous), page -> {
+            loadingMore = false;
+            // Dropped if a new search or reload started meanwhile
+            if (generation == searchGeneration) {
+                currentPage = page;
+                // Product IDs stay unique in the list (ListReconciler and searchIndex key on them),
+                // even if a search's ranking moved a product across the page boundary
+                Set<Integer> shown = new HashSet<>();
+                for (Product product : availableMedications) {
+                    shown.add(product.getId());
+                }
+                List<Product> added = new ArrayList<>();
+                for (Product product : page.getProducts()) {
+                    if (shown.add(product.getId())) {
+                        added.add(product);
                     }
-                } catch (Exception e) {
-                    // If parsing fails, use current time
-                    dateAdded = LocalDateTime.now();
                 }
-                
-                Product product = new Product(
-                    resultSet.getInt("product_id"),
-                    resultSet.getString("name"),
-                    resultSet.getString("category"),
-                    resultSet.getDouble("price"),
-                    resultSet.getInt("stock"),
-                    resultSet.getString("status"),
-                    resultSet.getString("image_path"),
-                    dateAdded
-                );
+                availableMedications.addAll(added);
+                loadProductCards();
+            }
+        }, error -> {
+            loadingMore = false;
+            showLoadError(error);
+        });
+    }
+
+    private void showPage(int generation, ProductSearchService.SearchPage page) {
+        if (generation == searchGeneration) {
+            currentPage = page;
+        }
+    }
+
+    private boolean hasSearchCriteria() {
+        return !medicationSearchField.getText().trim().isEmpty()
+            || !"All Categories".equals(medicationCategoryFilter.getValue());
+    }
+
+    // Patches the product list and cards with changes from DataChangeBus
+    // (stock left after a checkout, edits on the Inventory page) instead of reloading
+    private void applyProductChanges(List<DataChangeBus.ProductChange> changes) {
+        if (medicationsLoader.isLoading()) {
+            // The load in flight may have read the table before these changes; read it again
+            loadAvailableMedications();
+            return;
+        }
+        boolean changed = false;
+        for (DataChangeBus.ProductChange change : changes) {
+            Product product = change.getProduct();
+            boolean sellable = product != null && "Available".equals(product.getStatus()) && product.getStock() > 0;
+            int index = indexOfMedication(change.getProductId());
+            if (index >= 0) {
+                if (sellable) {
+                    availableMedications.set(index, product);
+                } else {
+                    availableMedications.remove(index);
+                }
+                changed = true;
+            } else if (sellable && catalogLoaded) {
+                // A paged database listing only gains it on its next search, in ranked order
                 availableMedications.add(product);
+                changed = true;
             }
-            
-            // Load product cards into FlowPane
-            loadProductCards();
-            
-        } catch (SQLException e) {
-            showAlert(Alert.AlertType.ERROR, "Database Error", "Error loading products: " + e.getMessage());
-            e.printStackTrace();
-        } finally {
-            try {
-                if (connection != null) connection.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+        }
+        if (changed) {
+            // The search index already followed the list; re-apply the current filter
+            if (catalogLoaded) {
+                filterMedications();
+            } else {
+                loadProductCards();
             }
         }
     }
 
-    // load the product card UI for the current product list.
+    private int indexOfMedication(int productId) {
+        for (int i = 0; i < availableMedications.size(); i++) {
+            if (availableMedications.get(i).getId() == productId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void showLoadError(Throwable error) {
+        showAlert(Alert.AlertType.ERROR, "Database Error", "Error loading products: " + error.getMessage());
+        error.printStackTrace();
+    }
+
+    // Shows the current product list in the card grid; cards are only built for visible rows
     private void loadProductCards() {
-        medicationCardsContainer.getChildren().clear();
-        
-        medicationCardsContainer.setHgap(15); 
-        medicationCardsContainer.setVgap(15); 
-        
+        List<Product> displayed = new ArrayList<>();
         for (Product product : availableMedications) {
             // Show all pharmacy categories
             if (shouldDisplayProduct(product)) {
-                try {
-                    FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/fxml/ProductCard.fxml"));
-                    Node productCard = loader.load();
-                    
-                    ProductCardController cardController = loader.getController();
-                    cardController.setProduct(product);
-                    cardController.setOrderController(this);
-                    
-                    if (productCard instanceof javafx.scene.layout.Region) {
-                        javafx.scene.layout.Region cardRegion = (javafx.scene.layout.Region) productCard;
-                        cardRegion.setPrefSize(230, 330); 
-                        cardRegion.setMaxSize(230, 330);
-                        cardRegion.setMinSize(230, 330);
-                    }
-                    
-                    medicationCardsContainer.getChildren().add(productCard);
-                    
-                } catch (IOException e) {
-                    System.err.println("Error loading product card: " + e.getMessage());
-                    e.printStackTrace();
-                }
+                displayed.add(product);
             }
         }
+        medicationCardGrid.setProducts(displayed);
         
-        System.out.println("Loaded " + medicationCardsContainer.getChildren().size() + " product cards");
+        System.out.println("Loaded " + displayed.size() + " products (" + medicationCardGrid.getCardsLoaded() + " cards built)");
     }
     
     // Returns whether a product should be shown on the Order page
@@ -420,84 +501,164 @@ public class OrderController implements Initializable {
         return category != null && !category.trim().isEmpty();
     }
 
-    // Applies search text and category filter to the visible product cards
+    // Applies search text and category filter to the product cards
+    // Uses the in-memory index when the whole catalog is loaded, the database search otherwise
     private void filterMedications() {
-        String searchText = medicationSearchField.getText().toLowerCase();
-        String selectedCategory = medicationCategoryFilter.getValue();
-        
-        medicationCardsContainer.getChildren().clear();
-        
-        medicationCardsContainer.setHgap(15); 
-        medicationCardsContainer.setVgap(15); 
+        if (!catalogLoaded) {
+            if (hasSearchCriteria()) {
+                searchMedications();
+            } else {
+                loadAvailableMedications();
+            }
+            return;
+        }
         
-        for (Product product : availableMedications) {
+        List<Product> matches = new ArrayList<>();
+        for (Product product : searchIndex.search(medicationSearchField.getText(), medicationCategoryFilter.getValue())) {
             // Show all pharmacy categories
             if (shouldDisplayProduct(product)) {
-                boolean matchesSearch = searchText.isEmpty() || 
-                                      product.getName().toLowerCase().contains(searchText) ||
-                                      product.getCategory().toLowerCase().contains(searchText);
-                
-                boolean matchesCategory = "All Categories".equals(selectedCategory) || 
-                                        product.getCategory().equals(selectedCategory);
-                
-                if (matchesSearch && matchesCategory) {
-                    try {
-                        FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/fxml/ProductCard.fxml"));
-                        Node productCard = loader.load();
-                        
-                        ProductCardController cardController = loader.getController();
-                        cardController.setProduct(product);
-                        cardController.setOrderController(this);
-                        
-                        // Use consistent sizing with loadProductCards
-                        if (productCard instanceof javafx.scene.layout.Region) {
-                            javafx.scene.layout.Region cardRegion = (javafx.scene.layout.Region) productCard;
-                            cardRegion.setPrefSize(230, 330);
-                            cardRegion.setMaxSize(230, 330);
-                            cardRegion.setMinSize(230, 330);
-                        }
-                        
-                        medicationCardsContainer.getChildren().add(productCard);
-                        
-                    } catch (IOException e) {
-                        System.err.println("Error loading product card: " + e.getMessage());
-                    }
-                }
+                matches.add(product);
             }
         }
+        // Listed by product_id like the catalog; index slots get reused as products are patched in and out
+        matches.sort(Comparator.comparingInt(Product::getId));
+        medicationCardGrid.setProducts(matches);
+        searchRendered();
         
-        System.out.println("Filtered " + medicationCardsContainer.getChildren().size() + " product cards");
+        System.out.println("Filtered " + matches.size() + " products");
     }
 
-    // Adds a product to the cart
-    public void addProductToCart(Product product, int quantity) {
-        // Check if product already exists in cart
+    // Records keystroke-to-render latency for the search just shown, once its layout pass is done
+    private void searchRendered() {
+        if (searchInputNanos == 0) {
+            return;
+        }
+        long inputNanos = searchInputNanos;
+        searchInputNanos = 0;
+        Scene scene = medicationCardGrid.getScene();
+        if (scene == null) {
+            searchLatency.record(System.nanoTime() - inputNanos);
+            return;
+        }
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                searchLatency.record(System.nanoTime() - inputNanos);
+            }
+        });
+    }
+
+    // Lists the cart lines that lost their stock to another terminal and reloads the cards
+    // The available quantities are read on a background worker
+    private void showStockConflicts(List<OrderItem> conflicts) {
+        DataAccessExecutor.submit("reservations.available", () -> {
+            StringBuilder message = new StringBuilder("These items no longer have enough stock:\n");
+            for (OrderItem item : conflicts) {
+                message.append("\n- ").append(item.getProductName())
+                       .append(": requested ").append(item.getQuantity());
+                try {
+                    message.append(", available ").append(StockReservationService.getAvailableQuantity(cartId, item.getProductId()));
+                } catch (SQLException e) {
+                    System.err.println("Could not read available stock: " + e.getMessage());
+                }
+            }
+            message.append("\n\nPlease adjust the cart and try again.");
+            return message.toString();
+        }, message -> {
+            showAlert(Alert.AlertType.WARNING, "Insufficient Stock", message);
+            loadAvailableMedications();
+        }, error -> System.err.println("Could not list stock conflicts: " + error.getMessage()));
+    }
+
+    // Adds a product to the cart after holding the stock for it
+    // The hold is taken on a background worker (it may wait for the writer behind a checkout);
+    // onDone gets the reservation outcome on the FX thread, or null if the database could not be reached
+    // or the user logged out meanwhile
+    public void addProductToCart(Product product, int quantity, Consumer<ReservationResult> onDone) {
+        if (savingOrder.get()) {
+            showAlert(Alert.AlertType.WARNING, "Order In Progress", "Please wait until the current order is saved before adding items.");
+            onDone.accept(null);
+            return;
+        }
+        OrderItem cartItem = findCartItem(product.getId());
+        int totalQuantity = quantity + (cartItem != null ? cartItem.getQuantity() : 0);
+        int startedIn = session;
+        pendingReservations.set(pendingReservations.get() + 1);
+        DataAccessExecutor.submit("reservations.reserve",
+            () -> StockReservationService.reserve(cartId, product.getId(), totalQuantity), reservation -> {
+                pendingReservations.set(pendingReservations.get() - 1);
+                if (startedIn != session) {
+                    // The user logged out while the hold was being taken; it belongs to no cart now
+                    if (reservation.isReserved()) {
+                        releaseHold(product.getId());
+                    }
+                    onDone.accept(null);
+                    return;
+                }
+                if (reservation.isReserved()) {
+                    addReservedToCart(product, totalQuantity);
+                }
+                onDone.accept(reservation);
+            }, error -> {
+                pendingReservations.set(pendingReservations.get() - 1);
+                showAlert(Alert.AlertType.ERROR, "Database Error", "Could not reserve stock: " + error.getMessage());
+                error.printStackTrace();
+                onDone.accept(null);
+            });
+    }
+
+    private OrderItem findCartItem(int productId) {
         for (OrderItem item : prescriptionCart) {
-            if (item.getProductId() == product.getId()) {
-                // Update quantity
-                item.setQuantity(item.getQuantity() + quantity);
-                item.setTotalPrice(item.getQuantity() * item.getUnitPrice());
-                prescriptionCartTable.refresh();
-                return;
+            if (item.getProductId() == productId) {
+                return item;
             }
         }
+        return null;
+    }
+
+    // Sets the cart line to the quantity now held for it
+    private void addReservedToCart(Product product, int totalQuantity) {
+        // Looked up again: the cart may have changed while the hold was being taken
+        OrderItem existingItem = findCartItem(product.getId());
+        
+        // Check if product already exists in cart
+        if (existingItem != null) {
+            // Update quantity
+            existingItem.setQuantity(totalQuantity);
+            existingItem.setTotalPrice(existingItem.getQuantity() * existingItem.getUnitPrice());
+            prescriptionCartTable.refresh();
+            return;
+        }
         
         // Add new item to cart
         OrderItem newItem = new OrderItem(
             0, // orderId will be set when order is placed
             product.getId(),
             product.getName(),
-            quantity,
+            totalQuantity,
             product.getPrice(),
-            quantity * product.getPrice()
+            totalQuantity * product.getPrice()
         );
         
         prescriptionCart.add(newItem);
     }
 
-    // Removes an item from the shopping cart 
+    // Removes an item from the shopping cart and gives its stock back
     private void removeFromCart(OrderItem item) {
         prescriptionCart.remove(item);
+        releaseHold(item.getProductId());
+    }
+
+    private void releaseHold(int productId) {
+        IoExecutor.execute("reservations.release", () -> {
+            try {
+                StockReservationService.release(cartId, productId);
+            } catch (SQLException e) {
+                // The hold simply expires if it can't be released now
+                System.err.println("Could not release stock hold: " + e.getMessage());
+            }
+        });
     }
 
     // cart total and updates the summary field
@@ -508,6 +669,18 @@ public class OrderController implements Initializable {
         prescriptionTotalField.setText("₱" + currencyFormat.format(total));
     }
 
+    // Empties the cart and gives all of its held stock back
+    private void releaseCart() {
+        prescriptionCart.clear();
+        IoExecutor.execute("reservations.releaseCart", () -> {
+            try {
+                StockReservationService.releaseCart(cartId);
+            } catch (SQLException e) {
+                System.err.println("Could not release stock holds: " + e.getMessage());
+            }
+        });
+    }
+
     // Clears customer info, cart items, and resets selectors to defaults
     private void clearPrescriptionForm() {
         patientNameField.setText("None"); // Set default value to "None"
@@ -526,12 +699,13 @@ public class OrderController implements Initializable {
                 patientNameField.setText("None");
             }
             
-            if (placeOrder()) {
-                generateReceiptAfterOrder(event);
+            Stage currentStage = (Stage) ((Node) event.getSource()).getScene().getWindow();
+            placeOrder(placedOrder -> {
+                generateReceiptAfterOrder(currentStage, placedOrder);
                 
                 showAlert(Alert.AlertType.INFORMATION, "Success", "Order placed successfully!");
                 clearPrescriptionForm();
-            }
+            });
         } else {
             showAlert(Alert.AlertType.WARNING, "Place Order First", "Please add items to cart before placing order.");
         }
@@ -541,6 +715,7 @@ public class OrderController implements Initializable {
     private void handleClearFilter(ActionEvent event) {
         medicationSearchField.clear();
         medicationCategoryFilter.setValue("All Categories");
+        searchDebounce.stop();
         filterMedications();
     }
 
@@ -554,7 +729,7 @@ public class OrderController implements Initializable {
 
             Optional<ButtonType> result = confirmAlert.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                prescriptionCart.clear();
+                releaseCart();
                 showAlert(Alert.AlertType.INFORMATION, "Cart Cleared", "All items have been removed from your cart.");
             }
         }
@@ -593,8 +768,9 @@ public class OrderController implements Initializable {
                 orderItems
             );
             
+            // ReceiptGenerator reports the saved location once the file is written
             if (success) {
-                showAlert(Alert.AlertType.INFORMATION, "Receipt", "Receipt generated and saved successfully!");
+                System.out.println("Receipt for " + orderId + " is being written");
             }
 
         } catch (Exception e) {
@@ -604,32 +780,21 @@ public class OrderController implements Initializable {
     }
 
     // Generates receipt automatically after order is placed
-    private void generateReceiptAfterOrder(ActionEvent event) {
+    private void generateReceiptAfterOrder(Stage currentStage, Order order) {
         try {
-            // Generate unique order ID using OrderIdGenerator
-            String orderId = OrderIdGenerator.generateOrderId();
-            
-            String customerName = patientNameField.getText().trim();
+            String customerName = order.getCustomerName();
             if (customerName.isEmpty()) {
                 customerName = "None";
             }
             
-            String paymentMethod = paymentMethodComboBox.getValue();
-            
-            double totalAmount = prescriptionCart.stream().mapToDouble(OrderItem::getTotalPrice).sum();
-            
-            Stage currentStage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-            
-            List<OrderItem> orderItems = new ArrayList<>(prescriptionCart);
-            
-            // Generate receipt using ReceiptGenerator (
+            // Generate receipt using ReceiptGenerator, with the ID the order was saved under
             boolean success = ReceiptGenerator.generateReceipt(
                 currentStage, 
-                orderId,
+                order.getId(),
                 customerName,
-                paymentMethod, 
-                totalAmount, 
-                orderItems
+                order.getPaymentMethod(), 
+                order.getTotalAmount(), 
+                order.getOrderItems()
             );
             
             if (success) {
@@ -650,7 +815,8 @@ public class OrderController implements Initializable {
     @FXML
     private void handleInventoryButton(ActionEvent event) {
         try {
-            loadScene(event, "/view/fxml/Inventory.fxml");
+            // The cart and its stock holds stay while the cashier looks something up
+            ViewManager.show(ViewManager.Screen.INVENTORY);
         } catch (IOException e) {
             showAlert(Alert.AlertType.ERROR, "Error", "Could not load Inventory page: " + e.getMessage());
         }
@@ -663,6 +829,27 @@ public class OrderController implements Initializable {
         loadAvailableMedications();
     }
 
+    //Dashboard page
+    @FXML
+    private void handleDashboardButton(ActionEvent event) {
+        try {
+            // Like Inventory, the cart stays while the dashboard is open
+            ViewManager.show(ViewManager.Screen.DASHBOARD);
+        } catch (IOException e) {
+            showAlert(Alert.AlertType.ERROR, "Error", "Could not load Dashboard page: " + e.getMessage());
+        }
+    }
+
+    //Recent orders page
+    @FXML
+    private void handleRecentOrderButton(ActionEvent event) {
+        try {
+            ViewManager.show(ViewManager.Screen.RECENT_ORDERS);
+        } catch (IOException e) {
+            showAlert(Alert.AlertType.ERROR, "Error", "Could not load Recent Orders page: " + e.getMessage());
+        }
+    }
+
 
 
     // Confirms and logs out to the Login page
@@ -676,23 +863,23 @@ public class OrderController implements Initializable {
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
-                loadScene(event, "/view/fxml/LoginPage.fxml");
+                ViewManager.show(ViewManager.Screen.LOGIN);
             } catch (IOException e) {
                 showAlert(Alert.AlertType.ERROR, "Error", "Could not load Login page: " + e.getMessage());
             }
         }
     }
 
-    // Utility methods
-    private void loadScene(ActionEvent event, String fxmlPath) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource(fxmlPath));
-        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root);
-        stage.setTitle("Health Point System");
-        stage.setScene(scene);
-        stage.show();
+    // The page is kept for the next login, so hand back this cart's stock and clear the patient
+    @Override
+    public void endSession() {
+        session++;
+        releaseCart();
+        clearPrescriptionForm();
     }
 
+    // Utility methods
+
     private void showAlert(Alert.AlertType type, String title, String message) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
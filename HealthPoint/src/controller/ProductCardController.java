@@ -6,9 +6,10 @@ import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseEvent;
+import model.ImageCache;
+import model.ThumbnailStore;
 import model.Product;
 import model.OrderItem;
-import java.io.File;
 import java.net.URL;
 import java.util.ResourceBundle;
 import java.util.ArrayList;
@@ -44,6 +45,8 @@ public class ProductCardController implements Initializable {
     @FXML
     private Button addToPrescriptionButton;
 
+    private static final int CARD_IMAGE_SIZE = 180;
+
     private Product medication;
     private OrderController orderController;
     
@@ -56,7 +59,13 @@ public class ProductCardController implements Initializable {
         quantitySpinner.setEditable(true);
     }
 
+    // Cards are recycled by ProductCardGrid, so a new product starts from a fresh quantity
     public void setProduct(Product medication) {
+        // Same product with fresh stock (from DataChangeBus) keeps the quantity being entered
+        boolean sameProduct = this.medication != null && medication != null && this.medication.getId() == medication.getId();
+        if (!sameProduct && quantitySpinner.getValueFactory() != null) {
+            quantitySpinner.getValueFactory().setValue(1);
+        }
         this.medication = medication;
         updateMedicationDisplay();
     }
@@ -75,21 +84,15 @@ public class ProductCardController implements Initializable {
             updateStockIndicator();
             
             try {
-                String imagePath = medication.getImagePath();
-                Image image = null;
-                
-                if (imagePath != null && !imagePath.isEmpty()) {
-                    File imageFile = new File(imagePath);
-                    if (imageFile.exists()) {
-                        image = new Image(imageFile.toURI().toString());
+                // Placeholder first; the product image is decoded off the FX thread
+                Product shown = medication;
+                medicationImageView.setImage(ImageCache.getPlaceholder(CARD_IMAGE_SIZE));
+                ImageCache.load(ThumbnailStore.displayPath(medication), CARD_IMAGE_SIZE, image -> {
+                    if (image != null && medication == shown) {
+                        medicationImageView.setImage(image);
                     }
-                }
-                
-                if (image == null) {
-                    image = new Image(getClass().getResource("/view/images/addimage.png").toExternalForm());
-                }
+                });
                 
-                medicationImageView.setImage(image);
                 medicationImageView.setPreserveRatio(true);
                 medicationImageView.setSmooth(true);
                 medicationImageView.setCache(true);
@@ -99,8 +102,7 @@ public class ProductCardController implements Initializable {
             } catch (Exception e) {
                 System.err.println("Error loading medication image: " + e.getMessage());
                 try {
-                    Image fallbackImage = new Image(getClass().getResource("/view/images/addimage.png").toExternalForm());
-                    medicationImageView.setImage(fallbackImage);
+                    medicationImageView.setImage(ImageCache.getPlaceholder(CARD_IMAGE_SIZE));
                     medicationImageView.setFitWidth(180.0);
                     medicationImageView.setFitHeight(180.0);
                 } catch (Exception ex) {
@@ -136,7 +138,8 @@ public class ProductCardController implements Initializable {
 
     /**
      * Handles adding medication to prescription cart.
-     * Validates stock availability and quantity before adding.
+     * The cart holds the stock in the database; if another terminal got there
+     * first the pharmacist is told how many units are actually left.
      */
     @FXML
     private void handleAddToPrescription() {
@@ -159,13 +162,30 @@ public class ProductCardController implements Initializable {
         }
 
         if (orderController != null) {
-            orderController.addProductToCart(medication, quantity);
-            showAlert("Added to Cart", 
-                     quantity + "x " + medication.getName() + " added to prescription cart!", 
-                     Alert.AlertType.INFORMATION);
-            
-            // Reset quantity to 1 after successful addition
-            quantitySpinner.getValueFactory().setValue(1);
+            // Disabled until the hold is taken, so a double click doesn't ask twice
+            Product product = medication;
+            addToPrescriptionButton.setDisable(true);
+            orderController.addProductToCart(product, quantity, reservation -> {
+                // The card may have been recycled for another product meanwhile
+                addToPrescriptionButton.setDisable(medication == null || medication.getStock() <= 0);
+                if (reservation == null) {
+                    return;
+                }
+                if (reservation.isConflict()) {
+                    showAlert("Insufficient Stock", 
+                             "Only " + reservation.getAvailableQuantity() + " units of " + product.getName() + 
+                             " are available for this cart (including any already in it). " +
+                             "The rest is sold or held in another cart.", 
+                             Alert.AlertType.WARNING);
+                    return;
+                }
+                showAlert("Added to Cart", 
+                         quantity + "x " + product.getName() + " added to prescription cart!", 
+                         Alert.AlertType.INFORMATION);
+                
+                // Reset quantity to 1 after successful addition
+                quantitySpinner.getValueFactory().setValue(1);
+            });
         }
     }
 
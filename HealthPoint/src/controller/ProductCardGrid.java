@@ -0,0 +1,190 @@
+package controller;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXMLLoader;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import model.ListReconciler;
+import model.Product;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ProductCardGrid
+ *
+ * Virtualized grid of product cards for the Order page. Products are grouped into rows
+ * that fit the current width, and the rows are shown by a ListView, so only the rows in
+ * the viewport have cells. Each cell loads its ProductCard.fxml cards once and rebinds
+ * their controllers to whatever products scroll into it, so loading or filtering
+ * thousands of medications costs about as much as the handful that are visible.
+ *
+ * Rows are patched rather than replaced when the products change (ListReconciler keyed
+ * by the row's product IDs), so rows a search or reload leaves alone keep their cells
+ * and cards untouched.
+ *
+ * Final, since the constructor hands this grid to ListView and to listeners before a
+ * subclass could have initialized itself.
+ */
+public final class ProductCardGrid extends ListView<List<Product>> {
+
+    private static final double CARD_WIDTH = 230;
+    private static final double CARD_HEIGHT = 330;
+    private static final double GAP = 15;
+    private static final double ROW_PADDING = 5;
+    // Room left for the vertical scroll bar when working out how many cards fit
+    private static final double SCROLL_BAR_ALLOWANCE = 16;
+
+    private final ObservableList<List<Product>> rows = FXCollections.observableArrayList();
+    private List<Product> products = new ArrayList<>();
+    private OrderController orderController;
+    private Runnable onScrolledToEnd;
+    private int columns = 1;
+    private int cardsLoaded = 0;
+
+    public ProductCardGrid() {
+        setItems(rows);
+        setFixedCellSize(CARD_HEIGHT + GAP);
+        setFocusTraversable(false);
+        setStyle("-fx-background-color: transparent; -fx-background-insets: 0; -fx-padding: 10 0 0 0;");
+        setCellFactory(listView -> new CardRowCell());
+
+        widthProperty().addListener((observable, oldWidth, newWidth) -> {
+            int fitting = columnsFor(newWidth.doubleValue());
+            if (fitting != columns) {
+                columns = fitting;
+                rebuildRows();
+            }
+        });
+    }
+
+    public void setOrderController(OrderController orderController) {
+        this.orderController = orderController;
+    }
+
+    /* Called when the last row comes into view, e.g. to fetch the next page. */
+    public void setOnScrolledToEnd(Runnable onScrolledToEnd) {
+        this.onScrolledToEnd = onScrolledToEnd;
+    }
+
+    /* Shows these products, in order, replacing the previous ones. */
+    public void setProducts(List<Product> products) {
+        // Same rows as on screen (e.g. a keystroke that did not change the matches): nothing to lay out
+        if (products.equals(this.products)) {
+            return;
+        }
+        this.products = new ArrayList<>(products);
+        rebuildRows();
+    }
+
+    // Cards created so far; stays near the number visible at once, not the catalog size
+    public int getCardsLoaded() {
+        return cardsLoaded;
+    }
+
+    private void rebuildRows() {
+        List<List<Product>> grouped = new ArrayList<>((products.size() + columns - 1) / columns);
+        for (int from = 0; from < products.size(); from += columns) {
+            grouped.add(products.subList(from, Math.min(from + columns, products.size())));
+        }
+        ListReconciler.reconcile(rows, grouped, ProductCardGrid::rowKey, ProductCardGrid::sameRow);
+    }
+
+    private static List<Integer> rowKey(List<Product> row) {
+        List<Integer> ids = new ArrayList<>(row.size());
+        for (Product product : row) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+
+    private static boolean sameRow(List<Product> shown, List<Product> wanted) {
+        for (int i = 0; i < shown.size(); i++) {
+            if (shown.get(i) != wanted.get(i) && !shown.get(i).hasSameValues(wanted.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int columnsFor(double width) {
+        double usable = width - SCROLL_BAR_ALLOWANCE - 2 * ROW_PADDING + GAP;
+        return Math.max(1, (int) (usable / (CARD_WIDTH + GAP)));
+    }
+
+    /* One row of cards; its cards and controllers are reused for every row it shows. */
+    private class CardRowCell extends ListCell<List<Product>> {
+        private final HBox row = new HBox(GAP);
+        private final List<Node> cards = new ArrayList<>();
+        private final List<ProductCardController> controllers = new ArrayList<>();
+
+        CardRowCell() {
+            row.setAlignment(Pos.TOP_CENTER);
+            row.setStyle("-fx-padding: 0 " + ROW_PADDING + " 0 " + ROW_PADDING + ";");
+            // Inline style wins over the :selected/:hover highlight of the default skin
+            setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+        }
+
+        @Override
+        protected void updateItem(List<Product> rowProducts, boolean empty) {
+            super.updateItem(rowProducts, empty);
+            if (empty || rowProducts == null) {
+                setGraphic(null);
+                return;
+            }
+
+            while (cards.size() < rowProducts.size()) {
+                if (!addCard()) {
+                    break;
+                }
+            }
+            for (int i = 0; i < cards.size(); i++) {
+                Node card = cards.get(i);
+                boolean used = i < rowProducts.size();
+                card.setVisible(used);
+                card.setManaged(used);
+                if (used) {
+                    controllers.get(i).setProduct(rowProducts.get(i));
+                }
+            }
+            setGraphic(row);
+
+            // Run after this layout pass; the callback may change the rows
+            if (onScrolledToEnd != null && getIndex() == rows.size() - 1) {
+                Platform.runLater(onScrolledToEnd);
+            }
+        }
+
+        private boolean addCard() {
+            try {
+                FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/fxml/ProductCard.fxml"));
+                Node card = loader.load();
+                if (card instanceof Region) {
+                    Region cardRegion = (Region) card;
+                    cardRegion.setPrefSize(CARD_WIDTH, CARD_HEIGHT);
+                    cardRegion.setMaxSize(CARD_WIDTH, CARD_HEIGHT);
+                    cardRegion.setMinSize(CARD_WIDTH, CARD_HEIGHT);
+                }
+                ProductCardController controller = loader.getController();
+                controller.setOrderController(orderController);
+
+                cards.add(card);
+                controllers.add(controller);
+                row.getChildren().add(card);
+                cardsLoaded++;
+                return true;
+            } catch (IOException e) {
+                System.err.println("Error loading product card: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+    }
+}
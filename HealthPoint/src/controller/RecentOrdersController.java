@@ -0,0 +1,465 @@
+package controller;
+
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.Stage;
+import model.DataAccessExecutor;
+import model.ImageCache;
+import model.IoExecutor;
+import model.Order;
+import model.OrderItem;
+import model.OrderPageSource;
+import model.OrderRepository;
+import model.ReceiptGenerator;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * RecentOrdersController
+ *
+ * Lists placed orders newest first, a page at a time, optionally for one day.
+ * An order's line items are only read when the order is opened, and can be
+ * printed again as a receipt.
+ */
+public class RecentOrdersController implements Initializable, ViewManager.Showable {
+
+    private static final int ACTION_ICON_SIZE = 30;
+    // Orders never change once placed, so their items can be kept while browsing
+    private static final int CACHED_ORDERS = 200;
+
+    @FXML private Button inventoryButton;
+    @FXML private Button orderButton;
+    @FXML private Button dashboardButton;
+    @FXML private Button recentOrderButton;
+    @FXML private Button logoutButton;
+
+    @FXML private DatePicker dayPicker;
+    @FXML private Button allDaysButton;
+    @FXML private Button reprintDayButton;
+    @FXML private Button refreshButton;
+    @FXML private Label pageInfoLabel;
+    @FXML private Button firstPageButton;
+    @FXML private Button previousPageButton;
+    @FXML private Button nextPageButton;
+
+    @FXML private TableView<Order> ordersTable;
+    @FXML private TableColumn<Order, String> orderIdColumn;
+    @FXML private TableColumn<Order, String> orderDateColumn;
+    @FXML private TableColumn<Order, String> customerColumn;
+    @FXML private TableColumn<Order, String> paymentColumn;
+    @FXML private TableColumn<Order, Double> totalColumn;
+    @FXML private TableColumn<Order, Void> actionsColumn;
+
+    @FXML private Label orderSummaryLabel;
+    @FXML private TableView<OrderItem> itemsTable;
+    @FXML private TableColumn<OrderItem, String> itemNameColumn;
+    @FXML private TableColumn<OrderItem, Integer> itemQuantityColumn;
+    @FXML private TableColumn<OrderItem, Double> itemPriceColumn;
+    @FXML private TableColumn<OrderItem, Double> itemTotalColumn;
+    @FXML private Label orderTotalLabel;
+    @FXML private Button reprintButton;
+
+    private final ObservableList<Order> ordersList = FXCollections.observableArrayList();
+    private final DataAccessExecutor.ListLoader<Order> ordersLoader = new DataAccessExecutor.ListLoader<>(ordersList);
+    private final Map<String, List<OrderItem>> itemsByOrder = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<OrderItem>> eldest) {
+            return size() > CACHED_ORDERS;
+        }
+    };
+    private final DecimalFormat currencyFormat = new DecimalFormat("#,##0.00");
+    private final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+
+    private OrderPageSource pageSource = OrderPageSource.defaultSource();
+    private OrderPageSource.Page currentPage;
+    private int orderCount = -1;
+    // The items being read for the opened order; opening another cancels it
+    private Task<List<OrderItem>> itemsTask;
+
+    /* Prepares the tables. Runs once; ViewManager keeps the page, and onShow() loads it. */
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        initializeOrdersTable();
+        initializeItemsTable();
+        ordersTable.setItems(ordersList);
+        ordersTable.setPlaceholder(new Label("No orders"));
+        itemsTable.setPlaceholder(new Label("No order selected"));
+        ordersTable.getSelectionModel().selectedItemProperty().addListener((obs, oldOrder, newOrder) -> showOrder(newOrder));
+        dayPicker.setOnAction(event -> changeDay());
+    }
+
+    // Called by ViewManager whenever the page comes back; orders placed since appear on page one
+    @Override
+    public void onShow() {
+        if (!ordersLoader.isLoading()) {
+            OrderPageSource source = pageSource;
+            OrderPageSource.Page page = currentPage;
+            showPage("orders.reloadPage", () -> source.reload(page), true);
+        }
+    }
+
+    private void initializeOrdersTable() {
+        orderIdColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getId()));
+        orderDateColumn.setCellValueFactory(cellData -> new SimpleStringProperty(
+            cellData.getValue().getOrderDate() != null ? cellData.getValue().getOrderDate().format(dateFormat) : ""));
+        customerColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getCustomerName()));
+        paymentColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getPaymentMethod()));
+        totalColumn.setCellValueFactory(cellData -> new SimpleDoubleProperty(cellData.getValue().getTotalAmount()).asObject());
+        totalColumn.setCellFactory(column -> currencyCell());
+
+        // View details and reprint buttons
+        actionsColumn.setCellFactory(column -> new TableCell<Order, Void>() {
+            private final Button detailsButton = actionButton("/view/images/view_details.png", "#0ea5e9", "View Details");
+            private final Button printButton = actionButton("/view/images/reprint.png", "#059669", "Reprint Receipt");
+            private final HBox buttonBox = new HBox(5, detailsButton, printButton);
+
+            {
+                buttonBox.setAlignment(Pos.CENTER);
+                detailsButton.setOnAction(event -> ordersTable.getSelectionModel().select(getIndex()));
+                printButton.setOnAction(event -> {
+                    Order order = getTableView().getItems().get(getIndex());
+                    if (order != null) {
+                        ordersTable.getSelectionModel().select(order);
+                        reprint(order);
+                    }
+                });
+            }
+
+            @Override
+            protected void updateItem(Void item, boolean empty) {
+                super.updateItem(item, empty);
+                setGraphic(empty ? null : buttonBox);
+            }
+        });
+    }
+
+    private void initializeItemsTable() {
+        itemNameColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getProductName()));
+        itemQuantityColumn.setCellValueFactory(cellData -> new SimpleIntegerProperty(cellData.getValue().getQuantity()).asObject());
+        itemPriceColumn.setCellValueFactory(cellData -> new SimpleDoubleProperty(cellData.getValue().getUnitPrice()).asObject());
+        itemPriceColumn.setCellFactory(column -> currencyCell());
+        itemTotalColumn.setCellValueFactory(cellData -> new SimpleDoubleProperty(cellData.getValue().getTotalPrice()).asObject());
+        itemTotalColumn.setCellFactory(column -> currencyCell());
+    }
+
+    private <S> TableCell<S, Double> currencyCell() {
+        return new TableCell<S, Double>() {
+            @Override
+            protected void updateItem(Double amount, boolean empty) {
+                super.updateItem(amount, empty);
+                setText(empty || amount == null ? null : "₱" + currencyFormat.format(amount));
+            }
+        };
+    }
+
+    private static Button actionButton(String iconPath, String color, String tooltip) {
+        ImageView icon = new ImageView();
+        try {
+            icon.setImage(ImageCache.getResource(iconPath, ACTION_ICON_SIZE));
+            icon.setFitHeight(20);
+            icon.setFitWidth(20);
+            icon.setPreserveRatio(true);
+        } catch (Exception e) {
+            System.err.println("Could not load " + iconPath + ": " + e.getMessage());
+        }
+        Button button = new Button();
+        button.setGraphic(icon);
+        button.setStyle("-fx-background-color: " + color + "; -fx-background-radius: 4; -fx-cursor: hand; -fx-border-width: 0; -fx-padding: 3;");
+        button.setTooltip(new Tooltip(tooltip));
+        return button;
+    }
+
+    // Paging
+
+    /*
+     * Replaces the list with one page. The query runs on a background worker; a newer
+     * page load cancels one still in flight.
+     * @param withCount true to count the orders alongside (read from the sales rollups, so
+     *                  cheap however many there are); page and count arrive or fail together
+     */
+    private void showPage(String name, Callable<OrderPageSource.Page> query, boolean withCount) {
+        OrderPageSource source = pageSource;
+        AtomicReference<OrderPageSource.Page> loaded = new AtomicReference<>();
+        AtomicReference<Integer> counted = new AtomicReference<>();
+        setPageButtonsDisabled(true);
+        ordersLoader.load(withCount ? "orders.pageWithCount" : name, () -> {
+            if (withCount) {
+                Map.Entry<OrderPageSource.Page, Integer> both = IoExecutor.forkBoth(
+                    name, query, "orders.count", source::count, Map::entry);
+                loaded.set(both.getKey());
+                counted.set(both.getValue());
+            } else {
+                loaded.set(query.call());
+            }
+            return loaded.get().getOrders();
+        }, () -> {
+            currentPage = loaded.get();
+            if (withCount) {
+                orderCount = counted.get();
+            }
+            updatePageControls();
+            ordersTable.scrollTo(0);
+        }, error -> {
+            updatePageControls();
+            System.err.println("SQL Error in loadOrders: " + error.getMessage());
+            error.printStackTrace();
+            showAlert("Database Error", "Error loading orders: " + error.getMessage(), Alert.AlertType.ERROR);
+        });
+    }
+
+    private void changeDay() {
+        pageSource = new OrderPageSource(dayPicker.getValue(), OrderPageSource.DEFAULT_PAGE_SIZE);
+        reprintDayButton.setDisable(dayPicker.getValue() == null);
+        orderCount = -1;
+        showPage("orders.firstPage", pageSource::firstPage, true);
+    }
+
+    @FXML
+    private void handleAllDays(ActionEvent event) {
+        if (dayPicker.getValue() != null) {
+            // Fires the picker's action, which reloads
+            dayPicker.setValue(null);
+        }
+    }
+
+    @FXML
+    private void handleRefreshButton(ActionEvent event) {
+        onShow();
+    }
+
+    @FXML
+    private void handleNextPage(ActionEvent event) {
+        OrderPageSource.Page page = currentPage;
+        if (page == null || !page.hasNext()) {
+            return;
+        }
+        OrderPageSource source = pageSource;
+        showPage("orders.nextPage", () -> source.nextPage(page), false);
+    }
+
+    @FXML
+    private void handlePreviousPage(ActionEvent event) {
+        OrderPageSource.Page page = currentPage;
+        if (page == null || !page.hasPrevious()) {
+            return;
+        }
+        OrderPageSource source = pageSource;
+        showPage("orders.previousPage", () -> source.previousPage(page), false);
+    }
+
+    @FXML
+    private void handleFirstPage(ActionEvent event) {
+        OrderPageSource source = pageSource;
+        showPage("orders.firstPage", source::firstPage, false);
+    }
+
+    private void updatePageControls() {
+        OrderPageSource.Page page = currentPage;
+        if (page == null) {
+            setPageButtonsDisabled(true);
+            return;
+        }
+        firstPageButton.setDisable(!page.hasPrevious());
+        previousPageButton.setDisable(!page.hasPrevious());
+        nextPageButton.setDisable(!page.hasNext());
+
+        int from = page.getIndex() * pageSource.getPageSize() + 1;
+        int to = page.getIndex() * pageSource.getPageSize() + ordersList.size();
+        String range = ordersList.isEmpty() ? "No orders" : String.format("%,d-%,d", from, to);
+        pageInfoLabel.setText(orderCount >= 0 ? range + " of " + String.format("%,d", orderCount) : range);
+    }
+
+    private void setPageButtonsDisabled(boolean disabled) {
+        firstPageButton.setDisable(disabled);
+        previousPageButton.setDisable(disabled);
+        nextPageButton.setDisable(disabled);
+    }
+
+    // Order details
+
+    /* Shows an order's items, reading them the first time the order is opened. */
+    private void showOrder(Order order) {
+        if (itemsTask != null) {
+            itemsTask.cancel();
+            itemsTask = null;
+        }
+        itemsTable.getItems().clear();
+        reprintButton.setDisable(order == null);
+        if (order == null) {
+            itemsTable.setPlaceholder(new Label("No order selected"));
+            orderSummaryLabel.setText("Select an order to see its items");
+            orderTotalLabel.setText("₱0.00");
+            return;
+        }
+        orderSummaryLabel.setText(order.getId() + "  •  " + order.getCustomerName() + "  •  " + order.getPaymentMethod() +
+            (order.getOrderDate() != null ? "  •  " + order.getOrderDate().format(dateFormat) : ""));
+        orderTotalLabel.setText("₱" + currencyFormat.format(order.getTotalAmount()));
+        withItems(order, items -> {
+            if (ordersTable.getSelectionModel().getSelectedItem() == order) {
+                itemsTable.getItems().setAll(items);
+            }
+        });
+    }
+
+    // Hands the order's items to action on the FX thread, from the cache or the database
+    private void withItems(Order order, Consumer<List<OrderItem>> action) {
+        List<OrderItem> cached = itemsByOrder.get(order.getId());
+        if (cached != null) {
+            action.accept(cached);
+            return;
+        }
+        itemsTable.setPlaceholder(new Label("Loading items..."));
+        itemsTask = DataAccessExecutor.submit("orders.items", () -> OrderRepository.findItems(order.getId()), items -> {
+            itemsByOrder.put(order.getId(), items);
+            itemsTable.setPlaceholder(new Label("No items"));
+            action.accept(items);
+        }, error -> {
+            itemsTable.setPlaceholder(new Label("Could not load items"));
+            System.err.println("Error loading items of " + order.getId() + ": " + error.getMessage());
+            error.printStackTrace();
+        });
+    }
+
+    @FXML
+    private void handleReprint(ActionEvent event) {
+        Order order = ordersTable.getSelectionModel().getSelectedItem();
+        if (order != null) {
+            reprint(order);
+        }
+    }
+
+    private void reprint(Order order) {
+        withItems(order, items -> {
+            Stage stage = (Stage) ordersTable.getScene().getWindow();
+            LocalDateTime orderDate = order.getOrderDate() != null ? order.getOrderDate() : LocalDateTime.now();
+            boolean saving = ReceiptGenerator.generateReceipt(stage, order.getId(), order.getCustomerName(),
+                order.getPaymentMethod(), order.getTotalAmount(), items, orderDate);
+            if (saving) {
+                System.out.println("Receipt for " + order.getId() + " is being written again");
+            }
+        });
+    }
+
+    /* Writes a receipt for every order of the chosen day into a folder, one file per order. */
+    @FXML
+    private void handleReprintDay(ActionEvent event) {
+        LocalDate day = dayPicker.getValue();
+        if (day == null) {
+            return;
+        }
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Save Receipts for " + day);
+        chooser.setInitialDirectory(new File(System.getProperty("user.home")));
+        File directory = chooser.showDialog(ordersTable.getScene().getWindow());
+        if (directory == null) {
+            return;
+        }
+
+        reprintDayButton.setDisable(true);
+        long start = System.nanoTime();
+        DataAccessExecutor.submit("receipts.reprintDay",
+            () -> ReceiptGenerator.writeReceipts(directory.toPath(), OrderRepository.findByDay(day)), count -> {
+                reprintDayButton.setDisable(dayPicker.getValue() == null);
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                System.out.println("Reprinted " + count + " receipts for " + day + " in " + millis + " ms");
+                showAlert("Receipts Saved", count + " receipt(s) for " + day + " saved to\n" + directory,
+                    Alert.AlertType.INFORMATION);
+            }, error -> {
+                reprintDayButton.setDisable(dayPicker.getValue() == null);
+                System.err.println("Error reprinting receipts for " + day + ": " + error.getMessage());
+                error.printStackTrace();
+                showAlert("Receipt Generation Error", "Error saving receipts: " + error.getMessage(), Alert.AlertType.ERROR);
+            });
+    }
+
+    // Navigation methods
+
+    /* Navigates to the Inventory page. */
+    @FXML
+    private void handleInventoryButton(ActionEvent event) {
+        try {
+            ViewManager.show(ViewManager.Screen.INVENTORY);
+        } catch (IOException e) {
+            showAlert("Error", "Could not load Inventory page: " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    /* Navigates to the Order page. */
+    @FXML
+    private void handleOrderButton(ActionEvent event) {
+        try {
+            ViewManager.show(ViewManager.Screen.ORDER);
+        } catch (IOException e) {
+            showAlert("Error", "Could not load Order page: " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    /* Navigates to the sales Dashboard. */
+    @FXML
+    private void handleDashboardButton(ActionEvent event) {
+        try {
+            ViewManager.show(ViewManager.Screen.DASHBOARD);
+        } catch (IOException e) {
+            showAlert("Error", "Could not load Dashboard page: " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    /* Refreshes the list without changing page. */
+    @FXML
+    private void handleRecentOrderButton(ActionEvent event) {
+        // Already on recent orders page
+        onShow();
+    }
+
+    /* Confirms and logs out to the Login page. */
+    @FXML
+    private void handleLogoutButton(ActionEvent event) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Logout Confirmation");
+        alert.setHeaderText("Are you sure you want to logout?");
+        alert.setContentText("You will be redirected to the login page.");
+
+        Optional<ButtonType> result = alert.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            try {
+                ordersTable.getSelectionModel().clearSelection();
+                ViewManager.show(ViewManager.Screen.LOGIN);
+            } catch (IOException e) {
+                showAlert("Error", "Could not load Login page: " + e.getMessage(), Alert.AlertType.ERROR);
+            }
+        }
+    }
+
+    private void showAlert(String title, String message, Alert.AlertType type) {
+        Alert alert = new Alert(type);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
@@ -0,0 +1,157 @@
+package controller;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+/*
+ * Switches the main window between the Login, Inventory, Order, Dashboard and Recent Orders pages.
+ *
+ * Each page's FXML is loaded once; its root node and controller are kept and the one
+ * Scene just swaps roots, so moving between pages does not re-parse FXML, re-apply CSS
+ * or re-run initialize(). Controllers that need to catch up when their page comes back
+ * (new stock levels, a cleared login form) implement Showable.
+ *
+ * Since the pages outlive a login, controllers holding the user's work (a cart, a
+ * half-edited product) implement SessionScoped; every move back to the Login page
+ * resets them here, whichever page the user logged out from.
+ *
+ * FX thread only.
+ */
+public class ViewManager {
+
+    /* The pages of the main window. */
+    public enum Screen {
+        LOGIN("/view/fxml/LoginPage.fxml", false),
+        INVENTORY("/view/fxml/Inventory.fxml", true),
+        ORDER("/view/fxml/Order.fxml", true),
+        DASHBOARD("/view/fxml/Dashboard.fxml", true),
+        RECENT_ORDERS("/view/fxml/RecentOrders.fxml", true);
+
+        private final String fxmlPath;
+        private final boolean resizable;
+
+        Screen(String fxmlPath, boolean resizable) {
+            this.fxmlPath = fxmlPath;
+            this.resizable = resizable;
+        }
+    }
+
+    /* Implemented by controllers that refresh when their page is shown. */
+    public interface Showable {
+        /* Called on the FX thread every time the page is shown, including the first. */
+        void onShow();
+    }
+
+    /* Implemented by controllers that keep state belonging to the logged-in user. */
+    public interface SessionScoped {
+        /* Called on the FX thread when the user logs out, before the Login page is shown. */
+        void endSession();
+    }
+
+    private static final Map<Screen, LoadedView> views = new EnumMap<>(Screen.class);
+    private static Stage stage;
+    private static Screen current;
+
+    /* Uses this stage for every page; call once before show(). */
+    public static void init(Stage primaryStage) {
+        stage = primaryStage;
+    }
+
+    /* Puts the page in the window, loading it first if it is not cached yet. */
+    public static void show(Screen screen) throws IOException {
+        long started = System.nanoTime();
+        if (screen == Screen.LOGIN && current != null && current != Screen.LOGIN) {
+            endSession();
+        }
+        boolean cached = views.containsKey(screen);
+        LoadedView view = load(screen);
+
+        if (stage.getScene() == null) {
+            stage.setScene(new Scene(view.root));
+        } else if (stage.getScene().getRoot() != view.root) {
+            stage.getScene().setRoot(view.root);
+        }
+        stage.setTitle("Health Point System");
+        stage.setResizable(screen.resizable);
+        // The window takes each page's preferred size, as it did with a new Scene per page
+        stage.sizeToScene();
+        stage.centerOnScreen();
+        current = screen;
+
+        if (view.controller instanceof Showable) {
+            ((Showable) view.controller).onShow();
+        }
+        System.out.println("Showed " + screen + " in " + (System.nanoTime() - started) / 1_000_000 + "ms" +
+            (cached ? " (cached)" : " (loaded)"));
+    }
+
+    /*
+     * Loads pages in the background of the FX thread, one per pulse, so the first visit
+     * to each is as quick as the later ones. Failures are only logged; show() tries again.
+     * @return Completes once every page has been tried
+     */
+    public static CompletableFuture<Void> preload(Screen... screens) {
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[screens.length];
+        for (int i = 0; i < screens.length; i++) {
+            Screen screen = screens[i];
+            CompletableFuture<Void> loaded = new CompletableFuture<>();
+            loads[i] = loaded;
+            Platform.runLater(() -> {
+                try {
+                    load(screen);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Could not preload " + screen + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+                loaded.complete(null);
+            });
+        }
+        return CompletableFuture.allOf(loads);
+    }
+
+    /* Clears the leaving user's state from every loaded page, so none of it reaches the next login. */
+    private static void endSession() {
+        for (LoadedView view : views.values()) {
+            if (view.controller instanceof SessionScoped) {
+                try {
+                    ((SessionScoped) view.controller).endSession();
+                } catch (RuntimeException e) {
+                    // One page failing to reset must not stop the others or the logout
+                    System.err.println("Could not reset " + view.controller.getClass().getSimpleName() + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static LoadedView load(Screen screen) throws IOException {
+        LoadedView view = views.get(screen);
+        if (view == null) {
+            long started = System.nanoTime();
+            FXMLLoader loader = new FXMLLoader(ViewManager.class.getResource(screen.fxmlPath));
+            Parent root = loader.load();
+            view = new LoadedView(root, loader.getController());
+            views.put(screen, view);
+            System.out.println("Loaded " + screen + " view in " + (System.nanoTime() - started) / 1_000_000 + "ms");
+        }
+        return view;
+    }
+
+    private static class LoadedView {
+        private final Parent root;
+        private final Object controller;
+
+        LoadedView(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package model;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Periodically checkpoints the WAL so it does not keep growing during a busy shift.
+ *
+ * Runs a PASSIVE checkpoint on a timer (never blocks readers). Shrinking the file is left to
+ * the writer's journal_size_limit (see StorageProfile): once a checkpoint has caught up, the
+ * next commit restarts the WAL and cuts it back, so a burst that grew it while readers held
+ * back checkpoints doesn't leave a huge -wal file behind for the rest of the day.
+ */
+public class CheckpointScheduler {
+
+    private final ConnectionPool pool;
+    private final int intervalSeconds;
+    private ScheduledExecutorService executor;
+
+    public CheckpointScheduler(ConnectionPool pool, int intervalSeconds) {
+        this.pool = pool;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wal-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkpoint, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /* Stops the timer and folds the whole WAL back into the database file. */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        runCheckpoint("TRUNCATE");
+    }
+
+    private void checkpoint() {
+        runCheckpoint("PASSIVE");
+    }
+
+    private void runCheckpoint(String mode) {
+        if (pool.isClosed()) {
+            return;
+        }
+        try (ConnectionLease lease = pool.leaseWriter();
+             Statement statement = lease.getConnection().createStatement()) {
+            statement.execute("PRAGMA wal_checkpoint(" + mode + ")");
+        } catch (SQLException e) {
+            System.err.println("WAL checkpoint (" + mode + ") failed: " + e.getMessage());
+        }
+    }
+}
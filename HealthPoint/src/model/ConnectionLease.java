@@ -0,0 +1,62 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/*
+ * A connection borrowed from the ConnectionPool.
+ *
+ * Use it in try-with-resources and never close the underlying Connection directly;
+ * closing the lease hands the connection back to the pool for the next caller.
+ *
+ * Statements from prepare() are cached on the connection and reused by later leases,
+ * so close their ResultSets but not the statements themselves.
+ */
+public class ConnectionLease implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final ConnectionPool.PooledConnection pooledConnection;
+    private final boolean readOnly;
+    private boolean released = false;
+
+    ConnectionLease(ConnectionPool pool, ConnectionPool.PooledConnection pooledConnection, boolean readOnly) {
+        this.pool = pool;
+        this.pooledConnection = pooledConnection;
+        this.readOnly = readOnly;
+    }
+
+    public Connection getConnection() {
+        if (released) {
+            throw new IllegalStateException("Connection lease has already been returned to the pool");
+        }
+        return pooledConnection.getConnection();
+    }
+
+    /*
+     * Returns a prepared statement for the SQL, reusing the one cached on this connection
+     * when there is one (parameters and batch cleared). Do not close it.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        if (released) {
+            throw new IllegalStateException("Connection lease has already been returned to the pool");
+        }
+        return pooledConnection.prepare(sql);
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    ConnectionPool.PooledConnection getPooledConnection() {
+        return pooledConnection;
+    }
+
+    @Override
+    public void close() {
+        if (!released) {
+            released = true;
+            pool.release(this);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Bounded pool of SQLite connections: one writer and a fixed number of read-only readers.
+ *
+ * SQLite allows a single writer at a time, so the writer is handed out exclusively and
+ * callers queue for it instead of fighting over the database lock. Connections are opened
+ * lazily, kept open for the life of the application, and checked before reuse when they
+ * have been idle for a while.
+ */
+public class ConnectionPool {
+
+    // SQLITE_OPEN_READONLY flag understood by the sqlite-jdbc "open_mode" property
+    private static final String OPEN_MODE_READONLY = "1";
+    private static final long IDLE_CHECK_MILLIS = 30_000;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private final String url;
+    private final StorageProfile storageProfile;
+    private final long leaseTimeoutMillis;
+
+    private final Semaphore writerPermit = new Semaphore(1, true);
+    private final Semaphore readerPermits;
+    private final ConcurrentLinkedDeque<PooledConnection> idleReaders = new ConcurrentLinkedDeque<>();
+    private PooledConnection writer;
+
+    private final PoolMetrics metrics;
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, StorageProfile storageProfile, int readerCount, long leaseTimeoutMillis) {
+        this.url = url;
+        this.storageProfile = storageProfile;
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        this.readerPermits = new Semaphore(readerCount, true);
+        this.metrics = new PoolMetrics(1 + readerCount);
+    }
+
+    /*
+     * Leases the single writer connection. Blocks until the current holder returns it.
+     * @return A lease that must be closed to return the connection
+     */
+    public ConnectionLease leaseWriter() throws SQLException {
+        long waitStart = System.nanoTime();
+        acquire(writerPermit, "writer");
+        PooledConnection leased;
+        try {
+            synchronized (this) {
+                if (writer == null || !isHealthy(writer)) {
+                    closeQuietly(writer);
+                    writer = open(false);
+                }
+                leased = writer;
+            }
+        } catch (SQLException e) {
+            writerPermit.release();
+            throw e;
+        }
+        metrics.recordLease(System.nanoTime() - waitStart);
+        return new ConnectionLease(this, leased, false);
+    }
+
+    /*
+     * Leases one of the read-only connections, opening a new one if none are idle.
+     * @return A lease that must be closed to return the connection
+     */
+    public ConnectionLease leaseReader() throws SQLException {
+        long waitStart = System.nanoTime();
+        acquire(readerPermits, "reader");
+        PooledConnection reader;
+        try {
+            reader = idleReaders.pollFirst();
+            if (reader != null && !isHealthy(reader)) {
+                closeQuietly(reader);
+                reader = null;
+            }
+            if (reader == null) {
+                reader = open(true);
+            }
+        } catch (SQLException e) {
+            readerPermits.release();
+            throw e;
+        }
+        metrics.recordLease(System.nanoTime() - waitStart);
+        return new ConnectionLease(this, reader, true);
+    }
+
+    /* Returns a leased connection to the pool. Called by ConnectionLease.close(). */
+    void release(ConnectionLease lease) {
+        PooledConnection pooled = lease.getPooledConnection();
+        pooled.markIdle();
+        metrics.recordRelease();
+
+        try {
+            // A lease that forgot to finish its transaction must not leak it to the next holder
+            Connection connection = pooled.getConnection();
+            if (!connection.isClosed() && !connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Discarding connection after failed reset: " + e.getMessage());
+            pooled.markBroken();
+        }
+
+        if (lease.isReadOnly()) {
+            if (closed || pooled.isBroken()) {
+                closeQuietly(pooled);
+            } else {
+                idleReaders.offerFirst(pooled);
+            }
+            readerPermits.release();
+        } else {
+            if (closed) {
+                closeQuietly(pooled);
+            }
+            writerPermit.release();
+        }
+    }
+
+    /*
+     * Closes every idle connection; connections still leased are closed as they are returned.
+     * Waits up to the lease timeout for a writer that is in use, so a checkout in flight at
+     * shutdown can commit first.
+     */
+    public void close() {
+        closed = true;
+        // Not while holding the monitor: the writer's holder may still need it in leaseWriter()
+        boolean writerIdle = false;
+        try {
+            writerIdle = writerPermit.tryAcquire(leaseTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerIdle) {
+            try {
+                synchronized (this) {
+                    closeQuietly(writer);
+                    writer = null;
+                }
+            } finally {
+                writerPermit.release();
+            }
+        } else {
+            System.err.println("Writer still in use after " + leaseTimeoutMillis + " ms; it is closed when returned");
+        }
+        PooledConnection reader;
+        while ((reader = idleReaders.pollFirst()) != null) {
+            closeQuietly(reader);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void acquire(Semaphore permits, String kind) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        if (permits.availablePermits() == 0) {
+            metrics.recordSaturation();
+        }
+        try {
+            if (!permits.tryAcquire(leaseTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                metrics.recordTimeout();
+                throw new SQLException("Timed out after " + leaseTimeoutMillis + " ms waiting for a " + kind + " connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a " + kind + " connection", e);
+        }
+    }
+
+    private PooledConnection open(boolean readOnly) throws SQLException {
+        Properties properties = new Properties();
+        if (readOnly) {
+            properties.setProperty("open_mode", OPEN_MODE_READONLY);
+        }
+        Connection connection = DriverManager.getConnection(url, properties);
+        try {
+            storageProfile.apply(connection, readOnly);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        metrics.recordOpen();
+        return new PooledConnection(connection, metrics);
+    }
+
+    // Cheap round trip for connections that sat idle; fresh or recently used ones are trusted
+    private boolean isHealthy(PooledConnection pooled) {
+        if (pooled.isBroken()) {
+            return false;
+        }
+        try {
+            Connection connection = pooled.getConnection();
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (pooled.getIdleMillis() < IDLE_CHECK_MILLIS) {
+                return true;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT 1");
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Pooled connection failed health check: " + e.getMessage());
+            metrics.recordHealthCheckFailure();
+            return false;
+        }
+    }
+
+    private void closeQuietly(PooledConnection pooled) {
+        if (pooled == null) {
+            return;
+        }
+        try {
+            // Closing the connection also closes every cached statement
+            pooled.getConnection().close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /* A physical connection plus the bookkeeping the pool needs for it. */
+    static class PooledConnection {
+        private final Connection connection;
+        private final PoolMetrics metrics;
+        private volatile long lastReleasedAt = System.currentTimeMillis();
+        private volatile boolean broken = false;
+
+        // Prepared statements kept for the life of the connection, least recently used evicted first.
+        // Only the current lease holder touches it, so it needs no locking of its own.
+        private final Map<String, PreparedStatement> statementCache =
+            new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= STATEMENT_CACHE_SIZE) {
+                        return false;
+                    }
+                    try {
+                        eldest.getValue().close();
+                    } catch (SQLException e) {
+                        System.err.println("Error closing cached statement: " + e.getMessage());
+                    }
+                    return true;
+                }
+            };
+
+        PooledConnection(Connection connection, PoolMetrics metrics) {
+            this.connection = connection;
+            this.metrics = metrics;
+        }
+
+        Connection getConnection() {
+            return connection;
+        }
+
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statementCache.get(sql);
+            if (statement != null && !statement.isClosed()) {
+                statement.clearParameters();
+                statement.clearBatch();
+                metrics.recordStatementCacheHit();
+                return statement;
+            }
+            statement = connection.prepareStatement(sql);
+            statementCache.put(sql, statement);
+            metrics.recordStatementCacheMiss();
+            return statement;
+        }
+
+        void markIdle() {
+            lastReleasedAt = System.currentTimeMillis();
+        }
+
+        void markBroken() {
+            broken = true;
+        }
+
+        boolean isBroken() {
+            return broken;
+        }
+
+        long getIdleMillis() {
+            return System.currentTimeMillis() - lastReleasedAt;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package model;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+
+/*
+ * Runs database reads off the JavaFX Application Thread.
+ *
+ * Work is wrapped in a javafx.concurrent.Task and executed on IoExecutor's virtual
+ * threads. Results reach the UI through Platform.runLater, and list results are
+ * published in batches of PUBLISH_BATCH_SIZE so a large catalog does not flood the
+ * FX event queue with one change per row.
+ */
+public class DataAccessExecutor {
+
+    static final int PUBLISH_BATCH_SIZE = 500;
+
+    /*
+     * Runs work in the background and reports back on the FX thread.
+     * @param name Timing name for IoExecutor
+     * @param work The blocking work (a query)
+     * @param onSuccess Receives the result on the FX thread
+     * @param onFailure Receives the error on the FX thread
+     * @return The task, which can be cancelled
+     */
+    public static <T> Task<T> submit(String name, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+        task.setOnSucceeded(event -> onSuccess.accept(task.getValue()));
+        task.setOnFailed(event -> onFailure.accept(task.getException()));
+        IoExecutor.execute(name, task);
+        return task;
+    }
+
+    /*
+     * Loads query results into one ObservableList, one load at a time.
+     *
+     * Starting a load cancels the previous one; a superseded load never touches the list,
+     * even if its query has already finished and its batches are waiting in the FX queue.
+     * Create and use it from the FX thread.
+     *
+     * By default each load replaces the contents. With reconcileBy() the list is instead
+     * patched to the new rows by ListReconciler, in one step on the FX thread.
+     */
+    public static class ListLoader<T> {
+
+        private final ObservableList<T> target;
+        private Task<List<T>> current;
+        private long generation;
+        private Function<? super T, ?> reconcileKey;
+        private BiPredicate<? super T, ? super T> sameValues;
+
+        public ListLoader(ObservableList<T> target) {
+            this.target = target;
+        }
+
+        /*
+         * Patches the list instead of replacing it: rows are matched by key, and unchanged
+         * rows keep their instance, so listeners only hear about real changes.
+         */
+        public ListLoader<T> reconcileBy(Function<? super T, ?> key, BiPredicate<? super T, ? super T> sameValues) {
+            this.reconcileKey = key;
+            this.sameValues = sameValues;
+            return this;
+        }
+
+        /*
+         * Replaces the list contents with the query's rows.
+         * @param name Timing name for IoExecutor
+         * @param query The blocking query
+         * @param onLoaded Runs on the FX thread after the last batch has been added
+         * @param onFailure Receives the error on the FX thread
+         */
+        public Task<List<T>> load(String name, Callable<List<T>> query, Runnable onLoaded, Consumer<Throwable> onFailure) {
+            cancel();
+            long loadGeneration = generation;
+
+            Task<List<T>> task = new Task<>() {
+                @Override
+                protected List<T> call() throws Exception {
+                    List<T> rows = query.call();
+                    if (isCancelled()) {
+                        return rows;
+                    }
+                    if (reconcileKey != null) {
+                        reconcile(loadGeneration, rows);
+                        return rows;
+                    }
+                    // The first batch replaces the old contents so the view never flashes empty
+                    if (rows.isEmpty()) {
+                        publish(loadGeneration, rows, true);
+                    }
+                    for (int from = 0; from < rows.size(); from += PUBLISH_BATCH_SIZE) {
+                        int to = Math.min(from + PUBLISH_BATCH_SIZE, rows.size());
+                        publish(loadGeneration, rows.subList(from, to), from == 0);
+                    }
+                    return rows;
+                }
+            };
+            // Succeeded is delivered through the same FX queue, after every batch above
+            task.setOnSucceeded(event -> {
+                if (loadGeneration == generation && onLoaded != null) {
+                    onLoaded.run();
+                }
+            });
+            task.setOnFailed(event -> {
+                if (loadGeneration == generation) {
+                    onFailure.accept(task.getException());
+                }
+            });
+
+            current = task;
+            IoExecutor.execute(name, task);
+            return task;
+        }
+
+        /* Stops the running load, if any, from publishing anything more. */
+        public void cancel() {
+            generation++;
+            if (current != null) {
+                current.cancel(true);
+                current = null;
+            }
+        }
+
+        public boolean isLoading() {
+            return current != null && current.isRunning();
+        }
+
+        private void reconcile(long loadGeneration, List<T> rows) {
+            Platform.runLater(() -> {
+                if (loadGeneration == generation) {
+                    ListReconciler.reconcile(target, rows, reconcileKey, sameValues);
+                }
+            });
+        }
+
+        private void publish(long loadGeneration, List<T> batch, boolean replace) {
+            Platform.runLater(() -> {
+                if (loadGeneration != generation) {
+                    return;
+                }
+                if (replace) {
+                    target.setAll(batch);
+                } else {
+                    target.addAll(batch);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javafx.application.Platform;
+
+/*
+ * Tells open screens which products changed, so they can patch their lists in place
+ * instead of reloading meds_product after every write.
+ *
+ * The repositories publish after each committed add, update, delete and checkout, with
+ * the rows as they now are. Listeners are called on the FX thread, in publish order.
+ * They are held weakly (like JavaFX's Weak*Listener): a controller keeps its listener in
+ * a field, and once the controller's view is gone the subscription goes with it.
+ *
+ * Only changes made by this process are seen; other terminals still need a reload.
+ */
+public class DataChangeBus {
+
+    private static final List<WeakReference<ProductListener>> listeners = new CopyOnWriteArrayList<>();
+
+    /* Receives product changes on the FX thread. */
+    public interface ProductListener {
+        void onProductsChanged(List<ProductChange> changes);
+    }
+
+    /* Registers the listener. It is held weakly and dropped once collected, so the caller must keep a strong reference to it. */
+    public static void subscribe(ProductListener listener) {
+        listeners.add(new WeakReference<>(listener));
+    }
+
+    /* Whether anyone is listening; publishers skip building events when not. */
+    public static boolean hasListeners() {
+        listeners.removeIf(reference -> reference.get() == null);
+        return !listeners.isEmpty();
+    }
+
+    /* Delivers the changes to every listener on the FX thread. */
+    public static void publish(List<ProductChange> changes) {
+        if (changes.isEmpty() || !hasListeners()) {
+            return;
+        }
+        List<ProductChange> delivered = Collections.unmodifiableList(new ArrayList<>(changes));
+        Platform.runLater(() -> {
+            for (WeakReference<ProductListener> reference : listeners) {
+                ProductListener listener = reference.get();
+                if (listener == null) {
+                    continue;
+                }
+                try {
+                    listener.onProductsChanged(delivered);
+                } catch (RuntimeException e) {
+                    System.err.println("Product change listener failed: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /* One product that was added, updated or removed. */
+    public static class ProductChange {
+
+        public enum Type { ADDED, UPDATED, REMOVED }
+
+        private final Type type;
+        private final int productId;
+        private final Product product;
+
+        ProductChange(Type type, int productId, Product product) {
+            this.type = type;
+            this.productId = productId;
+            this.product = product;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        /* The row after the change; null when removed. */
+        public Product getProduct() {
+            return product;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + productId;
+        }
+    }
+}
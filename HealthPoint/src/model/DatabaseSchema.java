@@ -0,0 +1,220 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+ * Creates the tables and indexes the application adds on top of the original
+ * Healthpoint.db schema. Every statement is idempotent, so this runs on each startup.
+ */
+public class DatabaseSchema {
+
+    private static final String[] STATEMENTS = {
+        // Stock held by open carts until checkout or expiry (expires_at is epoch millis)
+        "CREATE TABLE IF NOT EXISTS stock_reservations (" +
+        "    reservation_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+        "    cart_id TEXT NOT NULL," +
+        "    product_id INTEGER NOT NULL," +
+        "    quantity INTEGER NOT NULL," +
+        "    expires_at INTEGER NOT NULL)",
+        "CREATE UNIQUE INDEX IF NOT EXISTS idx_stock_reservations_cart_product " +
+        "    ON stock_reservations (cart_id, product_id)",
+        "CREATE INDEX IF NOT EXISTS idx_stock_reservations_product " +
+        "    ON stock_reservations (product_id, expires_at)",
+
+        // Counters for ProductIdAllocator (next_value is the next unused id)
+        "CREATE TABLE IF NOT EXISTS id_sequences (" +
+        "    sequence_name TEXT PRIMARY KEY," +
+        "    next_value INTEGER NOT NULL)",
+        "INSERT OR IGNORE INTO id_sequences (sequence_name, next_value) " +
+        "    SELECT 'meds_product', COALESCE(MAX(product_id), 0) + 1 FROM meds_product",
+
+        // Full-text index over product names and categories for ProductSearchService.
+        // External content: the text lives only in meds_product, the triggers keep the index in step
+        "CREATE VIRTUAL TABLE IF NOT EXISTS meds_product_fts USING fts5(" +
+        "    name, category, content='meds_product', content_rowid='product_id'," +
+        "    tokenize='unicode61 remove_diacritics 2', prefix='2 3')",
+        "CREATE TRIGGER IF NOT EXISTS meds_product_fts_insert AFTER INSERT ON meds_product BEGIN" +
+        "    INSERT INTO meds_product_fts (rowid, name, category) VALUES (new.product_id, new.name, new.category);" +
+        "END",
+        "CREATE TRIGGER IF NOT EXISTS meds_product_fts_delete AFTER DELETE ON meds_product BEGIN" +
+        "    INSERT INTO meds_product_fts (meds_product_fts, rowid, name, category) VALUES ('delete', old.product_id, old.name, old.category);" +
+        "END",
+        "CREATE TRIGGER IF NOT EXISTS meds_product_fts_update AFTER UPDATE OF product_id, name, category ON meds_product BEGIN" +
+        "    INSERT INTO meds_product_fts (meds_product_fts, rowid, name, category) VALUES ('delete', old.product_id, old.name, old.category);" +
+        "    INSERT INTO meds_product_fts (rowid, name, category) VALUES (new.product_id, new.name, new.category);" +
+        "END",
+        // Browsing the order screen without a search term
+        "CREATE INDEX IF NOT EXISTS idx_meds_product_available " +
+        "    ON meds_product (category, product_id) WHERE status = 'Available' AND stock > 0",
+        // Keyset paging of the inventory table by each sortable column (ProductPageSource)
+        "CREATE INDEX IF NOT EXISTS idx_meds_product_name ON meds_product (name, product_id)",
+        "CREATE INDEX IF NOT EXISTS idx_meds_product_category ON meds_product (category, product_id)",
+        "CREATE INDEX IF NOT EXISTS idx_meds_product_price ON meds_product (price, product_id)",
+        "CREATE INDEX IF NOT EXISTS idx_meds_product_stock ON meds_product (stock, product_id)",
+        "CREATE INDEX IF NOT EXISTS idx_meds_product_status ON meds_product (status, product_id)",
+        "CREATE INDEX IF NOT EXISTS idx_meds_product_date_added ON meds_product (date_added, product_id)",
+
+        // Row versions for ProductCatalogCache: every insert, update and delete takes the next
+        // catalog_version (for this row next_value is the last version handed out), so
+        // "updated_at > v" finds exactly the rows changed since version v
+        "INSERT OR IGNORE INTO id_sequences (sequence_name, next_value) VALUES ('catalog_version', 0)",
+        "CREATE INDEX IF NOT EXISTS idx_meds_product_updated_at ON meds_product (updated_at)",
+        // Deleted products, so a delta can tell the cache to drop them
+        "CREATE TABLE IF NOT EXISTS meds_product_deletions (" +
+        "    product_id INTEGER PRIMARY KEY," +
+        "    version INTEGER NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS idx_meds_product_deletions_version ON meds_product_deletions (version)",
+        "CREATE TRIGGER IF NOT EXISTS meds_product_version_insert AFTER INSERT ON meds_product BEGIN" +
+        "    UPDATE id_sequences SET next_value = next_value + 1 WHERE sequence_name = 'catalog_version';" +
+        "    UPDATE meds_product SET updated_at = (SELECT next_value FROM id_sequences WHERE sequence_name = 'catalog_version')" +
+        "        WHERE product_id = new.product_id;" +
+        "    DELETE FROM meds_product_deletions WHERE product_id = new.product_id;" +
+        "END",
+        // The WHEN clause keeps the trigger's own stamping update from stamping again
+        "CREATE TRIGGER IF NOT EXISTS meds_product_version_update AFTER UPDATE ON meds_product" +
+        "    WHEN new.updated_at IS old.updated_at BEGIN" +
+        "    UPDATE id_sequences SET next_value = next_value + 1 WHERE sequence_name = 'catalog_version';" +
+        "    UPDATE meds_product SET updated_at = (SELECT next_value FROM id_sequences WHERE sequence_name = 'catalog_version')" +
+        "        WHERE product_id = new.product_id;" +
+        "END",
+        "CREATE TRIGGER IF NOT EXISTS meds_product_version_delete AFTER DELETE ON meds_product BEGIN" +
+        "    UPDATE id_sequences SET next_value = next_value + 1 WHERE sequence_name = 'catalog_version';" +
+        "    INSERT OR REPLACE INTO meds_product_deletions (product_id, version)" +
+        "        VALUES (old.product_id, (SELECT next_value FROM id_sequences WHERE sequence_name = 'catalog_version'));" +
+        "END",
+
+        // Recent orders newest first (OrderPageSource): the keyset columns, then every column the
+        // list shows, so paging never reads the table
+        "CREATE INDEX IF NOT EXISTS idx_orders_recent ON orders" +
+        "    (order_date, order_time, order_id, customer_name, payment_method, order_status, total_amount)",
+        // An order's line items in the order they were added, without reading order_items itself
+        "CREATE INDEX IF NOT EXISTS idx_order_items_order ON order_items" +
+        "    (order_id, orderitems_id, product_id, product_name, quantity, unit_price, total_price)",
+
+        // Sales rollups for SalesAnalytics, one row per day and key (sale_date is order_date,
+        // sale_month its yyyy-MM prefix). OrderBatchWriter adds each order in its own transaction
+        "CREATE TABLE IF NOT EXISTS sales_daily (" +
+        "    sale_date TEXT PRIMARY KEY," +
+        "    order_count INTEGER NOT NULL," +
+        "    items_sold INTEGER NOT NULL," +
+        "    revenue REAL NOT NULL) WITHOUT ROWID",
+        "CREATE TABLE IF NOT EXISTS sales_daily_payment (" +
+        "    sale_date TEXT NOT NULL," +
+        "    payment_method TEXT NOT NULL," +
+        "    order_count INTEGER NOT NULL," +
+        "    revenue REAL NOT NULL," +
+        "    PRIMARY KEY (sale_date, payment_method)) WITHOUT ROWID",
+        "CREATE TABLE IF NOT EXISTS sales_daily_category (" +
+        "    sale_date TEXT NOT NULL," +
+        "    category TEXT NOT NULL," +
+        "    items_sold INTEGER NOT NULL," +
+        "    revenue REAL NOT NULL," +
+        "    PRIMARY KEY (sale_date, category)) WITHOUT ROWID",
+        "CREATE TABLE IF NOT EXISTS sales_daily_product (" +
+        "    sale_date TEXT NOT NULL," +
+        "    product_id INTEGER NOT NULL," +
+        "    product_name TEXT NOT NULL," +
+        "    items_sold INTEGER NOT NULL," +
+        "    revenue REAL NOT NULL," +
+        "    PRIMARY KEY (sale_date, product_id)) WITHOUT ROWID",
+        // Products per month too, so a ranking over years reads months instead of every day
+        "CREATE TABLE IF NOT EXISTS sales_monthly_product (" +
+        "    sale_month TEXT NOT NULL," +
+        "    product_id INTEGER NOT NULL," +
+        "    product_name TEXT NOT NULL," +
+        "    items_sold INTEGER NOT NULL," +
+        "    revenue REAL NOT NULL," +
+        "    PRIMARY KEY (sale_month, product_id)) WITHOUT ROWID",
+    };
+
+    // Fills the rollups from the orders placed before they existed; only needed once
+    private static final String[] SALES_BACKFILL = {
+        "INSERT INTO sales_daily (sale_date, order_count, items_sold, revenue) " +
+        "    SELECT o.order_date, COUNT(*), COALESCE(SUM(i.items_sold), 0), SUM(o.total_amount) FROM orders o" +
+        "    LEFT JOIN (SELECT order_id, SUM(quantity) AS items_sold FROM order_items GROUP BY order_id) i" +
+        "        ON i.order_id = o.order_id" +
+        "    GROUP BY o.order_date",
+        "INSERT INTO sales_daily_payment (sale_date, payment_method, order_count, revenue) " +
+        "    SELECT order_date, payment_method, COUNT(*), SUM(total_amount) FROM orders" +
+        "    GROUP BY order_date, payment_method",
+        "INSERT INTO sales_daily_category (sale_date, category, items_sold, revenue) " +
+        "    SELECT o.order_date, COALESCE(p.category, '" + SalesAnalytics.UNKNOWN_CATEGORY + "'), SUM(i.quantity), SUM(i.total_price)" +
+        "    FROM order_items i JOIN orders o ON o.order_id = i.order_id" +
+        "    LEFT JOIN meds_product p ON p.product_id = i.product_id" +
+        "    GROUP BY 1, 2",
+        "INSERT INTO sales_daily_product (sale_date, product_id, product_name, items_sold, revenue) " +
+        "    SELECT o.order_date, i.product_id, MAX(i.product_name), SUM(i.quantity), SUM(i.total_price)" +
+        "    FROM order_items i JOIN orders o ON o.order_id = i.order_id" +
+        "    GROUP BY o.order_date, i.product_id",
+        "INSERT INTO sales_monthly_product (sale_month, product_id, product_name, items_sold, revenue) " +
+        "    SELECT substr(sale_date, 1, 7), product_id, MAX(product_name), SUM(items_sold), SUM(revenue)" +
+        "    FROM sales_daily_product GROUP BY 1, 2",
+    };
+
+    /*
+     * Brings the database up to date. Runs in a single transaction on the writer connection.
+     * @param connection The writer connection
+     */
+    public static void ensureSchema(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            boolean ftsExisted = tableExists(connection, "meds_product_fts");
+            boolean salesRollupsExisted = tableExists(connection, "sales_daily");
+            // SQLite has no ADD COLUMN IF NOT EXISTS; must precede statements that use the column
+            if (!columnExists(connection, "meds_product", "thumbnail_key")) {
+                statement.execute("ALTER TABLE meds_product ADD COLUMN thumbnail_key TEXT");
+                System.out.println("Added meds_product.thumbnail_key");
+            }
+            if (!columnExists(connection, "meds_product", "updated_at")) {
+                statement.execute("ALTER TABLE meds_product ADD COLUMN updated_at INTEGER NOT NULL DEFAULT 0");
+                System.out.println("Added meds_product.updated_at");
+            }
+            for (String sql : STATEMENTS) {
+                statement.execute(sql);
+            }
+            // Index the products that were there before the triggers; only needed once
+            if (!ftsExisted) {
+                statement.execute("INSERT INTO meds_product_fts (meds_product_fts) VALUES ('rebuild')");
+                System.out.println("Built full-text index for meds_product");
+            }
+            if (!salesRollupsExisted) {
+                for (String sql : SALES_BACKFILL) {
+                    statement.execute(sql);
+                }
+                System.out.println("Built sales rollups from existing orders");
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM pragma_table_info(?) WHERE name = ?")) {
+            statement.setString(1, table);
+            statement.setString(2, column);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            statement.setString(1, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package model;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+
+/*
+ * Process-wide cache of decoded images.
+ *
+ * Product images are decoded once per display size (40px in the inventory table, 180px
+ * on order cards, ...) on IoExecutor and kept in an LRU bounded by decoded size
+ * (width * height * 4 bytes), so scrolling back over rows reuses pixels instead of
+ * re-reading files. Several cells asking for the same image while it decodes share one
+ * decode. Bundled images (placeholder, action icons) are small and few, so they are
+ * decoded once per size and never evicted.
+ */
+public class ImageCache {
+
+    public static final String MAX_MB_PROPERTY = "healthpoint.imagecache.mb";
+    public static final String PLACEHOLDER = "/view/images/addimage.png";
+
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final long MAX_BYTES = resolveMaxBytes();
+
+    private static final Object lock = new Object();
+    // Access-ordered, so iteration starts at the least recently used entry
+    private static final LinkedHashMap<String, Image> images = new LinkedHashMap<>(256, 0.75f, true);
+    private static final Map<String, List<Consumer<Image>>> pending = new HashMap<>();
+    private static final Map<String, Image> resources = new ConcurrentHashMap<>();
+    private static long bytes = 0;
+    private static long hits = 0;
+    private static long misses = 0;
+
+    /*
+     * Hands the image at the given path, decoded to fit size x size, to the callback on the
+     * FX thread: right away when cached, otherwise once decoded on IoExecutor. The callback
+     * gets null when the path is empty, missing or not a readable image, so the caller can
+     * keep its placeholder.
+     * @param imagePath Absolute path stored in meds_product.image_path
+     * @param size Width and height the image is shown at
+     */
+    public static void load(String imagePath, int size, Consumer<Image> onLoaded) {
+        if (imagePath == null || imagePath.isEmpty()) {
+            onLoaded.accept(null);
+            return;
+        }
+        String key = key(imagePath, size);
+        Image cached;
+        synchronized (lock) {
+            cached = images.get(key);
+            if (cached != null) {
+                hits++;
+            } else {
+                misses++;
+                List<Consumer<Image>> waiting = pending.get(key);
+                if (waiting != null) {
+                    // Already decoding for another cell
+                    waiting.add(onLoaded);
+                    return;
+                }
+                waiting = new ArrayList<>();
+                waiting.add(onLoaded);
+                pending.put(key, waiting);
+            }
+        }
+        if (cached != null) {
+            onLoaded.accept(cached);
+            return;
+        }
+
+        IoExecutor.execute("image.decode", () -> {
+            Image image = decode(imagePath, size);
+            List<Consumer<Image>> waiting;
+            synchronized (lock) {
+                if (image != null) {
+                    put(key, image);
+                }
+                waiting = pending.remove(key);
+            }
+            Platform.runLater(() -> waiting.forEach(callback -> callback.accept(image)));
+        });
+    }
+
+    /* A bundled image from /view/images, decoded once at the given size; null if missing. */
+    public static Image getResource(String resourcePath, int size) {
+        String key = key(resourcePath, size);
+        Image image = resources.get(key);
+        if (image == null) {
+            image = decodeResource(resourcePath, size);
+            if (image != null) {
+                Image existing = resources.putIfAbsent(key, image);
+                if (existing != null) {
+                    image = existing;
+                }
+            }
+        }
+        return image;
+    }
+
+    /* The shared "no image" placeholder at the given size. */
+    public static Image getPlaceholder(int size) {
+        return getResource(PLACEHOLDER, size);
+    }
+
+    /* Drops every cached size of this file, e.g. after the file was replaced. */
+    public static void invalidate(String imagePath) {
+        String prefix = imagePath + "@";
+        synchronized (lock) {
+            Iterator<Map.Entry<String, Image>> entries = images.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, Image> entry = entries.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    bytes -= sizeOf(entry.getValue());
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    public static String getStats() {
+        synchronized (lock) {
+            return String.format("entries=%d, bytes=%d/%d, hits=%d, misses=%d, resources=%d",
+                images.size(), bytes, MAX_BYTES, hits, misses, resources.size());
+        }
+    }
+
+    // Caller holds the lock
+    private static void put(String key, Image image) {
+        long size = sizeOf(image);
+        if (size > MAX_BYTES) {
+            return;
+        }
+        Image previous = images.put(key, image);
+        if (previous != null) {
+            bytes -= sizeOf(previous);
+        }
+        bytes += size;
+        Iterator<Image> eldest = images.values().iterator();
+        while (bytes > MAX_BYTES && eldest.hasNext()) {
+            bytes -= sizeOf(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private static Image decode(String imagePath, int size) {
+        File imageFile = new File(imagePath);
+        if (!imageFile.exists()) {
+            return null;
+        }
+        // Not background-loading: this thread already is the background
+        Image image = new Image(imageFile.toURI().toString(), size, size, true, true, false);
+        if (image.isError()) {
+            System.err.println("Error decoding image " + imagePath + ": " + image.getException());
+            return null;
+        }
+        return image;
+    }
+
+    private static Image decodeResource(String resourcePath, int size) {
+        try (InputStream stream = ImageCache.class.getResourceAsStream(resourcePath)) {
+            if (stream == null) {
+                System.err.println("Missing image resource " + resourcePath);
+                return null;
+            }
+            Image image = new Image(stream, size, size, true, true);
+            return image.isError() ? null : image;
+        } catch (Exception e) {
+            System.err.println("Error loading image resource " + resourcePath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    private static String key(String path, int size) {
+        return path + "@" + size;
+    }
+
+    private static long resolveMaxBytes() {
+        String configured = System.getProperty(MAX_MB_PROPERTY);
+        if (configured != null) {
+            try {
+                long megabytes = Long.parseLong(configured.trim());
+                if (megabytes > 0) {
+                    return megabytes * 1024 * 1024;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+            System.err.println("Invalid " + MAX_MB_PROPERTY + " '" + configured + "', using default");
+        }
+        return DEFAULT_MAX_BYTES;
+    }
+}
@@ -142,134 +142,25 @@ public class InventoryIdGenerator {
     }
     
     /*
-     * Generates a unique category-based ID that doesn't conflict with existing database records
-     * @param connection Database connection to check existing IDs
+     * Allocates the next product ID for a category from ProductIdAllocator.
+     * Normally served from memory; reserves a new block of IDs when the category runs out.
+     * @param connection Writer connection (autocommit) used when a new block is needed
      * @param categoryName The category name to generate ID for
-     * @return A unique ID that doesn't exist in the database
+     * @return A product ID no other product or terminal will receive
      */
-    public static int generateIdForCategory(java.sql.Connection connection, String categoryName) {
-        String categoryCode = getCategoryCode(categoryName);
-        int attempts = 0;
-        int maxAttempts = 100; // Prevent infinite loops
-        
-        while (attempts < maxAttempts) {
-            // Generate a random 3-digit number
-            long timestamp = System.currentTimeMillis() % 1000;
-            int candidateId = Integer.parseInt(String.format("%03d", timestamp));
-            
-            // Check if this ID already exists in the database
-            if (!idExistsInDatabase(connection, candidateId)) {
-                return candidateId;
-            }
-            
-            attempts++;
-            try {
-                Thread.sleep(1); // Small delay to get different timestamp
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
-        }
-        
-        // Fallback: generate a random number between 1-999
-        return (int) (Math.random() * 999) + 1;
-    }
-    
-    /**
-     * Check if an ID already exists in the database to avoid duplicates
-     * @param connection Database connection
-     * @param id The ID to check
-     * @return true if ID exists, false otherwise
-     */
-    private static boolean idExistsInDatabase(java.sql.Connection connection, int id) {
-        if (connection == null) {
-            return false;
-        }
-        
-        String checkSql = "SELECT COUNT(*) FROM meds_product WHERE product_id = ?";
-        try (java.sql.PreparedStatement stmt = connection.prepareStatement(checkSql)) {
-            stmt.setInt(1, id);
-            java.sql.ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
-        } catch (java.sql.SQLException e) {
-            System.err.println("Error checking ID existence: " + e.getMessage());
-        }
-        
-        return false;
+    public static int generateIdForCategory(java.sql.Connection connection, String categoryName) throws java.sql.SQLException {
+        return ProductIdAllocator.next(connection, getCategoryCode(categoryName));
     }
     
     /*
-     * Generates a unique category-based ID string that doesn't conflict with existing database records
-     * @param connection Database connection to check existing IDs
+     * Shows the ID the next product in this category will likely get, without allocating it;
+     * generateIdForCategory() assigns the real one when the product is saved
+     * @param connection Any connection (read-only is enough); nothing is written
      * @param categoryName The category name to generate ID for
-     * @return A unique ID string like "CLA-001", "PRE-002", etc.
+     * @return An ID string like "CLA-001", "PRE-002", etc.
      */
-    public static String generateCategoryIdString(java.sql.Connection connection, String categoryName) {
+    public static String generateCategoryIdString(java.sql.Connection connection, String categoryName) throws java.sql.SQLException {
         String categoryCode = getCategoryCode(categoryName);
-        int attempts = 0;
-        int maxAttempts = 100; // Prevent infinite loops
-        
-        while (attempts < maxAttempts) {
-            // Generate a random 3-digit number
-            long timestamp = System.currentTimeMillis() % 1000;
-            int number = Integer.parseInt(String.format("%03d", timestamp));
-            String candidateId = String.format("%s-%03d", categoryCode, number);
-            
-            // Check if this ID already exists in the database
-            if (!stringIdExistsInDatabase(connection, candidateId)) {
-                return candidateId;
-            }
-            
-            attempts++;
-            try {
-                Thread.sleep(1); // Small delay to get different timestamp
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
-        }
-        
-        //generate a random number between 1-999
-        int fallbackNumber = (int) (Math.random() * 999) + 1;
-        return String.format("%s-%03d", categoryCode, fallbackNumber);
-    }
-    
-    /*
-     * Checks if a string ID already exists in the products table
-     * @param connection Database connection
-     * @param id The ID string to check
-     * @return true if ID exists, false otherwise
-     */
-    private static boolean stringIdExistsInDatabase(java.sql.Connection connection, String id) {
-        if (connection == null) {
-            return false;
-        }
-        
-        // First check if we can query the table structure - using correct HealthPoint table
-        String checkSql = "SELECT COUNT(*) FROM meds_product WHERE CAST(product_id AS TEXT) = ?";
-        try (java.sql.PreparedStatement stmt = connection.prepareStatement(checkSql)) {
-            stmt.setString(1, id);
-            java.sql.ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
-        } catch (java.sql.SQLException e) {
-            // Fallback method if CAST doesn't work
-            try {
-                String checkSql2 = "SELECT COUNT(*) FROM meds_product WHERE product_id = ?";
-                java.sql.PreparedStatement stmt2 = connection.prepareStatement(checkSql2);
-                stmt2.setString(1, id);
-                java.sql.ResultSet rs2 = stmt2.executeQuery();
-                if (rs2.next()) {
-                    return rs2.getInt(1) > 0;
-                }
-            } catch (java.sql.SQLException e2) {
-                System.err.println("Error checking string ID existence: " + e2.getMessage());
-            }
-        }
-        
-        return false; 
+        return String.format("%s-%03d", categoryCode, ProductIdAllocator.peek(connection, categoryCode));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,174 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/*
+ * The one place blocking I/O runs: JDBC calls, receipt files and image decoding.
+ *
+ * Every task gets its own virtual thread, so a slow disk or a query waiting for a
+ * pooled connection parks cheaply instead of holding a platform thread (or the FX
+ * thread). Concurrency against the database is still bounded by the ConnectionPool.
+ *
+ * Tasks are named by kind ("products.firstPage", "receipt.write", ...) and timed per kind;
+ * getTimings() reports count, average and max, and anything slower than
+ * SLOW_TASK_MILLIS is logged.
+ */
+public class IoExecutor {
+
+    static final long SLOW_TASK_MILLIS = 250;
+
+    private static final ThreadFactory threadFactory = Thread.ofVirtual().name("io-", 0).factory();
+    // Same as Executors.newVirtualThreadPerTaskExecutor(), with named threads for stack dumps
+    private static final ExecutorService executor = Executors.newThreadPerTaskExecutor(threadFactory);
+    private static final Map<String, TaskTiming> timings = new ConcurrentHashMap<>();
+
+    /* Runs the task on its own virtual thread. */
+    public static <T> Future<T> submit(String name, Callable<T> task) {
+        return executor.submit(timed(name, task));
+    }
+
+    /* Runs the task on its own virtual thread, without a result. */
+    public static void execute(String name, Runnable task) {
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                record(name, System.nanoTime() - start);
+            }
+        });
+    }
+
+    /*
+     * Runs the tasks concurrently and waits for all of them. As soon as one fails, the others
+     * are interrupted and that failure is thrown; no task outlives the call either way.
+     * @param name Timing name shared by the tasks
+     * @return The results, in task order
+     */
+    public static <T> List<T> forkAll(String name, List<? extends Callable<T>> tasks) throws Exception {
+        List<Callable<T>> timedTasks = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            timedTasks.add(timed(name, task));
+        }
+        return fork(timedTasks);
+    }
+
+    /*
+     * Runs two different tasks concurrently (e.g. a page of rows and the total count for one
+     * screen) and combines their results, with the same failure handling as forkAll.
+     */
+    @SuppressWarnings("unchecked")
+    public static <A, B, R> R forkBoth(String nameA, Callable<A> taskA, String nameB, Callable<B> taskB,
+                                       BiFunction<A, B, R> combiner) throws Exception {
+        List<Object> results = fork(List.of(timed(nameA, taskA::call), timed(nameB, taskB::call)));
+        return combiner.apply((A) results.get(0), (B) results.get(1));
+    }
+
+    // Results are taken in completion order so a failure is seen without waiting for slower siblings
+    private static <T> List<T> fork(List<Callable<T>> tasks) throws Exception {
+        try (ExecutorService scope = Executors.newThreadPerTaskExecutor(threadFactory)) {
+            CompletionService<T> completions = new ExecutorCompletionService<>(scope);
+            Map<Future<T>, Integer> positions = new HashMap<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                positions.put(completions.submit(tasks.get(i)), i);
+            }
+            List<T> results = new ArrayList<>(Collections.nCopies(tasks.size(), null));
+            try {
+                for (int done = 0; done < tasks.size(); done++) {
+                    Future<T> future = completions.take();
+                    results.set(positions.get(future), future.get());
+                }
+            } catch (ExecutionException e) {
+                scope.shutdownNow();
+                throw unwrap(e);
+            } catch (InterruptedException e) {
+                scope.shutdownNow();
+                throw e;
+            }
+            return results;
+        }
+    }
+
+    /* Per-task-kind timings, sorted by name. */
+    public static Map<String, TaskTiming> getTimings() {
+        return new TreeMap<>(timings);
+    }
+
+    private static <T> Callable<T> timed(String name, Callable<T> task) {
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                return task.call();
+            } finally {
+                record(name, System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static void record(String name, long elapsedNanos) {
+        timings.computeIfAbsent(name, key -> new TaskTiming()).record(elapsedNanos);
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        if (elapsedMillis >= SLOW_TASK_MILLIS) {
+            System.out.println("Slow I/O task " + name + ": " + elapsedMillis + "ms");
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return e;
+    }
+
+    /* Running totals for one kind of task. */
+    public static class TaskTiming {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long elapsedNanos) {
+            count.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getAverageMillis() {
+            long runs = count.sum();
+            return runs == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / runs;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, avg=%.3fms, max=%.3fms", getCount(), getAverageMillis(), getMaxMillis());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Latency of a user-facing interaction (e.g. "search.keystrokeToRender"), by name.
+ *
+ * Keeps a running count, average and max, plus the last WINDOW samples for percentiles,
+ * so p95 reflects how the app feels now rather than since startup. getAll() is printed
+ * at shutdown alongside IoExecutor's timings.
+ */
+public class LatencyStats {
+
+    private static final int WINDOW = 512;
+    private static final Map<String, LatencyStats> stats = new ConcurrentHashMap<>();
+
+    private final long[] recent = new long[WINDOW];
+    private int recentCount = 0;
+    private int next = 0;
+    private long count = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    /* The stats for this name, created on first use. */
+    public static LatencyStats get(String name) {
+        return stats.computeIfAbsent(name, key -> new LatencyStats());
+    }
+
+    /* Every recorded interaction, sorted by name. */
+    public static Map<String, LatencyStats> getAll() {
+        return new TreeMap<>(stats);
+    }
+
+    public synchronized void record(long elapsedNanos) {
+        count++;
+        totalNanos += elapsedNanos;
+        maxNanos = Math.max(maxNanos, elapsedNanos);
+        recent[next] = elapsedNanos;
+        next = (next + 1) % WINDOW;
+        recentCount = Math.min(recentCount + 1, WINDOW);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getAverageMillis() {
+        return count == 0 ? 0 : totalNanos / 1_000_000.0 / count;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxNanos / 1_000_000.0;
+    }
+
+    /* The given percentile (0-100) of the recent samples, in milliseconds. */
+    public synchronized double getPercentileMillis(double percentile) {
+        if (recentCount == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(recent, recentCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * recentCount) - 1;
+        return sorted[Math.max(0, Math.min(index, recentCount - 1))] / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, avg=%.1fms, p50=%.1fms, p95=%.1fms, max=%.1fms",
+            getCount(), getAverageMillis(), getPercentileMillis(50), getPercentileMillis(95), getMaxMillis());
+    }
+}
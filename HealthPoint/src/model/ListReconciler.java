@@ -0,0 +1,182 @@
+package model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import javafx.collections.ObservableList;
+
+/*
+ * Turns a list into a new version of itself with as few changes as possible, instead of
+ * setAll(). Items are matched by key (e.g. product ID). Matched items whose values did
+ * not change keep their old instance and fire nothing, so a TableView keeps its
+ * selection and the listeners of an ObservableList (search index, card grid) only see
+ * what really changed.
+ *
+ * The items that can stay where they are form the longest increasing run of their new
+ * positions; everything else is removed, and missing items are inserted in contiguous
+ * runs. A moved item is a remove plus an insert. When most of the list changes anyway
+ * (e.g. the next page of a table) a single setAll() is cheaper than many small changes,
+ * so that is used instead.
+ *
+ * Keys must be unique within each list.
+ */
+public class ListReconciler {
+
+    /* What one reconcile did. */
+    public static class Result {
+        private final int inserted;
+        private final int removed;
+        private final int moved;
+        private final int updated;
+        private final boolean replacedAll;
+
+        Result(int inserted, int removed, int moved, int updated, boolean replacedAll) {
+            this.inserted = inserted;
+            this.removed = removed;
+            this.moved = moved;
+            this.updated = updated;
+            this.replacedAll = replacedAll;
+        }
+
+        public boolean isUnchanged() {
+            return !replacedAll && inserted == 0 && removed == 0 && moved == 0 && updated == 0;
+        }
+
+        public boolean isReplacedAll() {
+            return replacedAll;
+        }
+
+        @Override
+        public String toString() {
+            return replacedAll
+                ? "replaced all"
+                : String.format("inserted=%d, removed=%d, moved=%d, updated=%d", inserted, removed, moved, updated);
+        }
+    }
+
+    /*
+     * Makes target equal to desired, item for item.
+     * @param key Identity of an item across versions
+     * @param sameValues Whether an old and a new item with the same key look the same;
+     *                   if so the old instance is kept
+     */
+    public static <T, K> Result reconcile(List<T> target, List<T> desired, Function<? super T, K> key,
+                                          BiPredicate<? super T, ? super T> sameValues) {
+        if (target.isEmpty() || desired.isEmpty()) {
+            boolean changed = !(target.isEmpty() && desired.isEmpty());
+            replaceAll(target, desired);
+            return new Result(0, 0, 0, 0, changed);
+        }
+
+        Map<K, Integer> desiredIndex = new HashMap<>(desired.size() * 2);
+        for (int i = 0; i < desired.size(); i++) {
+            desiredIndex.put(key.apply(desired.get(i)), i);
+        }
+        // New position of each current item, -1 if it is gone
+        int[] positions = new int[target.size()];
+        for (int i = 0; i < target.size(); i++) {
+            Integer position = desiredIndex.get(key.apply(target.get(i)));
+            positions[i] = position != null ? position : -1;
+        }
+        boolean[] staysInTarget = longestIncreasingRun(positions);
+        boolean[] stableInDesired = new boolean[desired.size()];
+        int stable = 0;
+        int moved = 0;
+        for (int i = 0; i < positions.length; i++) {
+            if (staysInTarget[i]) {
+                stableInDesired[positions[i]] = true;
+                stable++;
+            } else if (positions[i] >= 0) {
+                moved++;
+            }
+        }
+
+        int removals = target.size() - stable;
+        int insertions = desired.size() - stable;
+        if (removals + insertions > desired.size()) {
+            replaceAll(target, desired);
+            return new Result(0, 0, 0, 0, true);
+        }
+
+        // Remove from the end, a contiguous run per change
+        int end = target.size();
+        while (end > 0) {
+            if (staysInTarget[end - 1]) {
+                end--;
+                continue;
+            }
+            int start = end - 1;
+            while (start > 0 && !staysInTarget[start - 1]) {
+                start--;
+            }
+            target.subList(start, end).clear();
+            end = start;
+        }
+
+        // What is left is in desired order; fill the gaps and refresh changed values
+        int updated = 0;
+        int index = 0;
+        while (index < desired.size()) {
+            if (stableInDesired[index]) {
+                T current = target.get(index);
+                T wanted = desired.get(index);
+                if (current != wanted && !sameValues.test(current, wanted)) {
+                    target.set(index, wanted);
+                    updated++;
+                }
+                index++;
+                continue;
+            }
+            int runEnd = index + 1;
+            while (runEnd < desired.size() && !stableInDesired[runEnd]) {
+                runEnd++;
+            }
+            target.addAll(index, desired.subList(index, runEnd));
+            index = runEnd;
+        }
+        return new Result(insertions - moved, removals - moved, moved, updated, false);
+    }
+
+    private static <T> void replaceAll(List<T> target, List<T> desired) {
+        if (target instanceof ObservableList) {
+            // One change event instead of a clear and an add
+            ((ObservableList<T>) target).setAll(desired);
+        } else {
+            target.clear();
+            target.addAll(desired);
+        }
+    }
+
+    // Marks the items (positions >= 0) in a longest strictly increasing subsequence of positions
+    private static boolean[] longestIncreasingRun(int[] positions) {
+        int[] tailIndex = new int[positions.length];
+        int[] previous = new int[positions.length];
+        int[] tailPosition = new int[positions.length];
+        int length = 0;
+        for (int i = 0; i < positions.length; i++) {
+            int position = positions[i];
+            if (position < 0) {
+                continue;
+            }
+            int slot = Arrays.binarySearch(tailPosition, 0, length, position);
+            if (slot < 0) {
+                slot = -slot - 1;
+            }
+            tailPosition[slot] = position;
+            tailIndex[slot] = i;
+            previous[i] = slot > 0 ? tailIndex[slot - 1] : -1;
+            if (slot == length) {
+                length++;
+            }
+        }
+        boolean[] inRun = new boolean[positions.length];
+        for (int i = length > 0 ? tailIndex[length - 1] : -1; i >= 0; i = previous[i]) {
+            inRun[i] = true;
+        }
+        return inRun;
+    }
+}
@@ -2,18 +2,14 @@ package model;
 
 import java.sql.SQLException;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 
 public class LoginModel {
 	
-Connection connection;
-
    public LoginModel() {
 	   
-	   connection = SqliteConnection.Connector();
-	   if (connection == null) {
+	   if (!SqliteConnection.isConnected()) {
 		   
 		   System.out.println("Database Connection Failed");
 		   System.exit(1);
@@ -23,22 +19,17 @@ Connection connection;
    }
    
        public boolean isDbConnected() {
-    	   try {
-			 return !connection.isClosed();
-		   } catch (SQLException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-			return false;
-		   }
-    	   
+    	   return SqliteConnection.isConnected();
        }
        
        public boolean isLogin(String user, String pass) throws SQLException {
+    	   ConnectionLease lease = null;
     	   PreparedStatement preparedStatement = null;
     	   ResultSet resultSet = null;
     	   String query = "SELECT * FROM user WHERE username = ? AND password = ?";
     	   try {
-    		   preparedStatement = connection.prepareStatement(query);
+    		   lease = SqliteConnection.leaseReader();
+    		   preparedStatement = lease.getConnection().prepareStatement(query);
     		   preparedStatement.setString(1, user);
     		   preparedStatement.setString(2, pass);
     		   
@@ -66,6 +57,9 @@ Connection connection;
     		   } catch (SQLException e) {
     			   e.printStackTrace();
     		   }
+    		   if (lease != null) {
+    			   lease.close();
+    		   }
     	   }
        }
 }
\ No newline at end of file
@@ -1,10 +1,8 @@
 package model;
 	
+import controller.ViewManager;
 import javafx.application.Application;
 import javafx.stage.Stage;
-import javafx.scene.Scene;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import javafx.scene.image.Image;
 
 public class Main extends Application {
@@ -16,16 +14,22 @@ public class Main extends Application {
 	@Override
 	public void start(Stage primaryStage) throws Exception {
 		
-		Parent root = FXMLLoader.load(getClass().getResource("/view/fxml/LoginPage.fxml"));
-		Scene scene = new Scene(root, 800, 600);
-
+		// Database, catalog, fonts and icons warm up in the background from here on
+		StartupOrchestrator.start();
+		
 		Image icon = new Image(getClass().getResourceAsStream("/view/images/healthPoint.png"));
 		primaryStage.getIcons().add(icon);
-		primaryStage.setTitle("Health Point System");
-		primaryStage.setScene(scene);
 		primaryStage.setMaximized(false);
-		primaryStage.setResizable(false);
-	    primaryStage.centerOnScreen();
+		
+		// One scene for the whole session; pages are swapped in as scene roots
+		ViewManager.init(primaryStage);
+		ViewManager.show(ViewManager.Screen.LOGIN);
 		primaryStage.show();
+		
+		// Build the other pages while the user types their credentials
+		StartupOrchestrator.loginShown();
+		
+		// Scripted session for startup measurements and class-data-sharing training (scripts/)
+		TrainingRun.startIfRequested();
 	}
 }
\ No newline at end of file
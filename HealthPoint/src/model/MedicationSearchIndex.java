@@ -0,0 +1,404 @@
+package model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * In-memory search over the products on the order screen.
+ *
+ * Each product gets a slot number; every index maps a key to the slots that have it,
+ * so a query is a handful of map lookups and BitSet ANDs instead of a pass over the
+ * catalog:
+ *   - short prefixes (1-2 chars) of every name/category token, for the first keystrokes
+ *   - trigrams of every token, for substring matches of 3+ chars ("cetamol")
+ *   - whole tokens, for typo-tolerant matching ("paracetmol", "ibuprofin")
+ *   - category names, for the category filter
+ * Text is normalized once, when a product is added (lower case, accents removed, split
+ * on anything that is not a letter or digit), so searching allocates almost nothing.
+ *
+ * upsert() and remove() keep the index current as rows change. Not thread-safe: use it
+ * from the FX thread, like the list it mirrors.
+ */
+public class MedicationSearchIndex {
+
+    private static final int SHORT_PREFIX_LENGTH = 2;
+    private static final int MIN_TYPO_LENGTH = 4;
+
+    private final List<Entry> slots = new ArrayList<>();
+    private final Map<Integer, Integer> slotByProductId = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet freeSlots = new BitSet();
+
+    private final Map<String, Postings> shortPrefixes = new HashMap<>();
+    private final Map<String, Postings> trigrams = new HashMap<>();
+    private final Map<String, Postings> tokens = new HashMap<>();
+    private final Map<String, Postings> categories = new HashMap<>();
+
+    /* Replaces the whole index with these products; their order is the result order. */
+    public void rebuild(Collection<Product> products) {
+        slots.clear();
+        slotByProductId.clear();
+        live.clear();
+        freeSlots.clear();
+        shortPrefixes.clear();
+        trigrams.clear();
+        tokens.clear();
+        categories.clear();
+        for (Product product : products) {
+            upsert(product);
+        }
+    }
+
+    /* Adds the product, or re-indexes it if its ID is already present. */
+    public void upsert(Product product) {
+        Integer existing = slotByProductId.get(product.getId());
+        if (existing != null) {
+            unindex(existing);
+        }
+        int slot = existing != null ? existing : allocateSlot();
+
+        Entry entry = new Entry(product);
+        slots.set(slot, entry);
+        slotByProductId.put(product.getId(), slot);
+        live.set(slot);
+
+        for (String token : entry.tokens) {
+            add(tokens, token, slot);
+            for (int length = 1; length <= Math.min(SHORT_PREFIX_LENGTH, token.length()); length++) {
+                add(shortPrefixes, token.substring(0, length), slot);
+            }
+            for (int i = 0; i + 3 <= token.length(); i++) {
+                add(trigrams, token.substring(i, i + 3), slot);
+            }
+        }
+        add(categories, entry.category, slot);
+    }
+
+    /* Drops the product from the index. Returns false if it was not indexed. */
+    public boolean remove(int productId) {
+        Integer slot = slotByProductId.remove(productId);
+        if (slot == null) {
+            return false;
+        }
+        unindex(slot);
+        slots.set(slot, null);
+        live.clear(slot);
+        freeSlots.set(slot);
+        return true;
+    }
+
+    public int size() {
+        return slotByProductId.size();
+    }
+
+    /*
+     * Products matching every word of the query, in the category (null or "All Categories"
+     * for any). A word matches a token that starts with it (1-2 chars) or contains it
+     * (3+ chars); a word of MIN_TYPO_LENGTH+ chars with no such match also accepts tokens
+     * within a small edit distance.
+     */
+    public List<Product> search(String query, String category) {
+        BitSet matches = match(query, category);
+        List<Product> results = new ArrayList<>(matches.cardinality());
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            results.add(slots.get(slot).product);
+        }
+        return results;
+    }
+
+    private BitSet match(String query, String category) {
+        BitSet result = (BitSet) live.clone();
+        if (category != null && !category.isEmpty() && !"All Categories".equals(category)) {
+            Postings inCategory = categories.get(normalize(category));
+            if (inCategory == null) {
+                return new BitSet();
+            }
+            inCategory.andInto(result);
+        }
+        for (String word : tokenize(query)) {
+            if (result.isEmpty()) {
+                break;
+            }
+            BitSet wordMatches = matchWord(word);
+            if (wordMatches.isEmpty() && word.length() >= MIN_TYPO_LENGTH) {
+                wordMatches = matchApproximately(word);
+            }
+            result.and(wordMatches);
+        }
+        return result;
+    }
+
+    private BitSet matchWord(String word) {
+        if (word.length() <= SHORT_PREFIX_LENGTH) {
+            Postings prefixMatches = shortPrefixes.get(word);
+            return prefixMatches != null ? prefixMatches.toBitSet() : new BitSet();
+        }
+
+        // Every trigram of the word must occur in the product, then confirm the substring itself
+        BitSet candidates = null;
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            Postings postings = trigrams.get(word.substring(i, i + 3));
+            if (postings == null) {
+                return new BitSet();
+            }
+            if (candidates == null) {
+                candidates = postings.toBitSet();
+            } else {
+                postings.andInto(candidates);
+            }
+        }
+        if (word.length() > 3) {
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                if (!slots.get(slot).containsInToken(word)) {
+                    candidates.clear(slot);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    // Typo tolerance: tokens within 1 edit (2 for long words), also comparing against the
+    // start of longer tokens so a misspelled prefix still finds the drug while typing
+    private BitSet matchApproximately(String word) {
+        int maxDistance = word.length() >= 8 ? 2 : 1;
+        BitSet result = new BitSet();
+        for (Map.Entry<String, Postings> token : tokens.entrySet()) {
+            String candidate = token.getKey();
+            if (candidate.length() < word.length() - maxDistance) {
+                continue;
+            }
+            String compared = candidate.length() > word.length() + maxDistance
+                ? candidate.substring(0, word.length() + maxDistance)
+                : candidate;
+            if (withinDistance(word, compared, maxDistance)) {
+                token.getValue().orInto(result);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Whether the word is within max edits of the candidate or of some prefix of it, using
+     * optimal string alignment distance (Levenshtein plus adjacent transpositions).
+     */
+    static boolean withinDistance(String word, String candidate, int max) {
+        int rows = word.length() + 1;
+        int cols = candidate.length() + 1;
+        int[][] d = new int[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j < cols; j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i < rows; i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j < cols; j++) {
+                int cost = word.charAt(i - 1) == candidate.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && word.charAt(i - 1) == candidate.charAt(j - 2)
+                        && word.charAt(i - 2) == candidate.charAt(j - 1)) {
+                    value = Math.min(value, d[i - 2][j - 2] + 1);
+                }
+                d[i][j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return false;
+            }
+        }
+        // Best alignment of the whole word against any prefix of the candidate
+        int best = Integer.MAX_VALUE;
+        for (int j = Math.max(0, word.length() - max); j < cols; j++) {
+            best = Math.min(best, d[rows - 1][j]);
+        }
+        return best <= max;
+    }
+
+    private int allocateSlot() {
+        int free = freeSlots.nextSetBit(0);
+        if (free >= 0) {
+            freeSlots.clear(free);
+            return free;
+        }
+        slots.add(null);
+        return slots.size() - 1;
+    }
+
+    private void unindex(int slot) {
+        Entry entry = slots.get(slot);
+        for (String token : entry.tokens) {
+            clear(tokens, token, slot);
+            for (int length = 1; length <= Math.min(SHORT_PREFIX_LENGTH, token.length()); length++) {
+                clear(shortPrefixes, token.substring(0, length), slot);
+            }
+            for (int i = 0; i + 3 <= token.length(); i++) {
+                clear(trigrams, token.substring(i, i + 3), slot);
+            }
+        }
+        clear(categories, entry.category, slot);
+    }
+
+    private static void add(Map<String, Postings> index, String key, int slot) {
+        index.computeIfAbsent(key, k -> new Postings()).add(slot);
+    }
+
+    private static void clear(Map<String, Postings> index, String key, int slot) {
+        Postings postings = index.get(key);
+        if (postings != null) {
+            postings.remove(slot);
+            if (postings.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            normalized.append(Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ');
+        }
+        return normalized.toString().trim();
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : normalize(text).split(" +")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /*
+     * The slots having one key. Most keys (whole tokens, rare trigrams) belong to a few
+     * products, so they are kept as a small sorted array and only become a BitSet, which
+     * is as long as the highest slot, once they hold DENSE_THRESHOLD slots.
+     */
+    private static class Postings {
+        private static final int DENSE_THRESHOLD = 64;
+
+        private int[] sparse = new int[2];
+        private int size;
+        private BitSet dense;
+
+        void add(int slot) {
+            if (dense != null) {
+                dense.set(slot);
+                return;
+            }
+            int position = Arrays.binarySearch(sparse, 0, size, slot);
+            if (position >= 0) {
+                return;
+            }
+            if (size == DENSE_THRESHOLD) {
+                dense = toBitSet();
+                dense.set(slot);
+                sparse = null;
+                return;
+            }
+            int insertAt = -position - 1;
+            if (size == sparse.length) {
+                sparse = Arrays.copyOf(sparse, size * 2);
+            }
+            System.arraycopy(sparse, insertAt, sparse, insertAt + 1, size - insertAt);
+            sparse[insertAt] = slot;
+            size++;
+        }
+
+        void remove(int slot) {
+            if (dense != null) {
+                dense.clear(slot);
+                return;
+            }
+            int position = Arrays.binarySearch(sparse, 0, size, slot);
+            if (position >= 0) {
+                System.arraycopy(sparse, position + 1, sparse, position, size - position - 1);
+                size--;
+            }
+        }
+
+        boolean isEmpty() {
+            return dense != null ? dense.isEmpty() : size == 0;
+        }
+
+        BitSet toBitSet() {
+            if (dense != null) {
+                return (BitSet) dense.clone();
+            }
+            BitSet bits = new BitSet();
+            for (int i = 0; i < size; i++) {
+                bits.set(sparse[i]);
+            }
+            return bits;
+        }
+
+        // target = target AND this
+        void andInto(BitSet target) {
+            if (dense != null) {
+                target.and(dense);
+                return;
+            }
+            BitSet kept = new BitSet();
+            for (int i = 0; i < size; i++) {
+                if (target.get(sparse[i])) {
+                    kept.set(sparse[i]);
+                }
+            }
+            target.clear();
+            target.or(kept);
+        }
+
+        // target = target OR this
+        void orInto(BitSet target) {
+            if (dense != null) {
+                target.or(dense);
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                target.set(sparse[i]);
+            }
+        }
+    }
+
+    /* A product with its text already normalized. */
+    private static class Entry {
+        final Product product;
+        final String category;
+        final String[] tokens;
+
+        Entry(Product product) {
+            this.product = product;
+            this.category = normalize(product.getCategory());
+            Set<String> unique = new LinkedHashSet<>(tokenize(product.getName()));
+            unique.addAll(tokenize(product.getCategory()));
+            this.tokens = unique.toArray(new String[0]);
+        }
+
+        boolean containsInToken(String word) {
+            for (String token : tokens) {
+                if (token.contains(word)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
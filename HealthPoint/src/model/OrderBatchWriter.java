@@ -0,0 +1,164 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Writes an order, its line items, the matching stock decrements and the order's share of
+ * the sales rollups (SalesAnalytics) in one transaction, sending each kind of statement to
+ * the driver as a single JDBC batch instead of one executeUpdate() per cart line.
+ *
+ * Stock is only decremented where enough is left once other carts' unexpired holds are
+ * set aside (stock - held by others >= quantity); if any line falls short the whole order
+ * is rolled back with a StockConflictException.
+ */
+public class OrderBatchWriter {
+
+    private static final String INSERT_ORDER_SQL =
+        "INSERT INTO orders (order_id, customer_name, payment_method, order_status, total_amount, order_date, order_time) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ORDER_ITEM_SQL =
+        "INSERT INTO order_items (order_id, product_id, product_name, quantity, unit_price, total_price) VALUES (?, ?, ?, ?, ?, ?)";
+    // Only out of stock nobody else is holding, so another cart's hold is kept at checkout
+    private static final String UPDATE_STOCK_SQL =
+        "UPDATE meds_product AS p SET stock = stock - ? WHERE p.product_id = ? " +
+        "AND p.stock - " + StockReservationService.HELD_BY_OTHERS + " >= ?";
+
+    /*
+     * Persists the order atomically. Commits on success, rolls back and rethrows on failure.
+     * @param lease The writer lease (autocommit is restored afterwards)
+     * @param order The order to save; its id, date and items must be set
+     * @param cartId The cart whose stock reservations the order consumes, or null
+     * @return Per-statement update counts for the header, item and stock batches
+     * @throws StockConflictException if any line no longer has enough stock
+     */
+    public static BatchResult write(ConnectionLease lease, Order order, String cartId) throws SQLException {
+        Connection connection = lease.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try {
+            PreparedStatement orderStmt = lease.prepare(INSERT_ORDER_SQL);
+            PreparedStatement itemStmt = lease.prepare(INSERT_ORDER_ITEM_SQL);
+            PreparedStatement stockStmt = lease.prepare(UPDATE_STOCK_SQL);
+
+            long now = System.currentTimeMillis();
+            LocalDateTime orderDate = order.getOrderDate();
+            orderStmt.setString(1, order.getId());
+            orderStmt.setString(2, order.getCustomerName());
+            orderStmt.setString(3, order.getPaymentMethod());
+            orderStmt.setString(4, order.getStatus());
+            orderStmt.setDouble(5, order.getTotalAmount());
+            orderStmt.setString(6, orderDate.toLocalDate().toString());
+            orderStmt.setString(7, orderDate.toLocalTime().toString());
+            orderStmt.addBatch();
+
+            for (OrderItem item : order.getOrderItems()) {
+                itemStmt.setString(1, order.getId());
+                itemStmt.setInt(2, item.getProductId());
+                itemStmt.setString(3, item.getProductName());
+                itemStmt.setInt(4, item.getQuantity());
+                itemStmt.setDouble(5, item.getUnitPrice());
+                itemStmt.setDouble(6, item.getTotalPrice());
+                itemStmt.addBatch();
+
+                stockStmt.setInt(1, item.getQuantity());
+                stockStmt.setInt(2, item.getProductId());
+                stockStmt.setString(3, cartId);
+                stockStmt.setLong(4, now);
+                stockStmt.setInt(5, item.getQuantity());
+                stockStmt.addBatch();
+            }
+
+            BatchResult result = new BatchResult(
+                orderStmt.executeBatch(),
+                itemStmt.executeBatch(),
+                stockStmt.executeBatch()
+            );
+
+            // A decrement that matched no row means another till got to the stock first
+            List<OrderItem> conflicts = new ArrayList<>();
+            int[] stockCounts = result.stockCounts;
+            for (int i = 0; i < stockCounts.length; i++) {
+                if (stockCounts[i] == 0) {
+                    conflicts.add(order.getOrderItems().get(i));
+                }
+            }
+            if (!conflicts.isEmpty()) {
+                throw new StockConflictException(conflicts);
+            }
+
+            if (cartId != null) {
+                PreparedStatement releaseStmt = lease.prepare(StockReservationService.RELEASE_CART_SQL);
+                releaseStmt.setString(1, cartId);
+                releaseStmt.executeUpdate();
+            }
+
+            SalesAnalytics.record(lease, order);
+            connection.commit();
+            return result;
+
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /* Update counts reported by the driver for each batch, in cart order. */
+    public static class BatchResult {
+        private final int[] orderCounts;
+        private final int[] itemCounts;
+        private final int[] stockCounts;
+
+        BatchResult(int[] orderCounts, int[] itemCounts, int[] stockCounts) {
+            this.orderCounts = orderCounts;
+            this.itemCounts = itemCounts;
+            this.stockCounts = stockCounts;
+        }
+
+        public int[] getOrderCounts() {
+            return orderCounts.clone();
+        }
+
+        public int[] getItemCounts() {
+            return itemCounts.clone();
+        }
+
+        public int[] getStockCounts() {
+            return stockCounts.clone();
+        }
+
+        public int getRowsWritten() {
+            return sum(orderCounts) + sum(itemCounts) + sum(stockCounts);
+        }
+
+        private static int sum(int[] counts) {
+            int total = 0;
+            for (int count : counts) {
+                // SUCCESS_NO_INFO means the driver ran the row but didn't count it
+                total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            return "BatchResult{" +
+                    "orders=" + Arrays.toString(orderCounts) +
+                    ", items=" + Arrays.toString(itemCounts) +
+                    ", stock=" + Arrays.toString(stockCounts) +
+                    '}';
+        }
+    }
+}
@@ -1,20 +1,130 @@
 package model;
 
+import java.net.InetAddress;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Generates order IDs like "ORD-0F3K9Z2X81C4A".
+ *
+ * The number behind the prefix is a 63-bit time + node + sequence value:
+ *   41 bits  milliseconds since 2025-01-01 UTC
+ *   10 bits  node id of this terminal (0-1023)
+ *   12 bits  sequence within the millisecond (4096 IDs per ms)
+ * so IDs are unique across terminals without touching the database, and sort in the
+ * order they were created. It is written in base 36, zero-padded to a fixed width, so
+ * string order matches numeric order.
+ *
+ * Give each till its own node id with -Dhealthpoint.node.id=N; this is required when more
+ * than one till shares the database. Without it a node id is derived from the host name
+ * and process id, which is fine for a single till but can collide between two, and two
+ * tills with the same node id can issue the same order ID. A warning is logged at startup
+ * whenever the derived id is used.
+ */
 public class OrderIdGenerator {
+
+    public static final String PREFIX = "ORD-";
+    public static final String NODE_ID_PROPERTY = "healthpoint.node.id";
+
+    private static final long EPOCH_MILLIS = 1735689600000L; // 2025-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13; // Long.MAX_VALUE in base 36
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private static final long CONFIGURED_NODE_ID = parseConfiguredNodeId();
+    private static final long NODE_ID = CONFIGURED_NODE_ID >= 0 ? CONFIGURED_NODE_ID : deriveNodeId();
+
+    // (millis since EPOCH << SEQUENCE_BITS) | sequence of the last ID handed out
+    private static final AtomicLong lastState = new AtomicLong();
+
     public static String generateOrderId() {
-        // Use timestamp to ensure uniqueness - gets last 6 digits of current timestamp
-        long timestamp = System.currentTimeMillis() % 1_000_000;
-        return String.format("ORD-%06d", timestamp);
+        return encode(nextId());
     }
 
-    public static void main(String[] args) {
-        //should produce a unique ID
-        System.out.println(generateOrderId());
+    /* Returns the next raw 63-bit ID. Lock-free; safe to call from any thread. */
+    public static long nextId() {
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long last = lastState.get();
+            long next;
+            if (now > (last >>> SEQUENCE_BITS)) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // Same millisecond, or the clock stepped back: keep counting from the last value.
+                // A full sequence carries into the timestamp bits, i.e. borrows the next millisecond.
+                next = last + 1;
+            }
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (NODE_ID << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public static long getNodeId() {
+        return NODE_ID;
+    }
+
+    private static String encode(long id) {
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = DIGITS[(int) (id % 36)];
+            id /= 36;
+        }
+        return new String(chars);
+    }
+
+    // The node id given with -Dhealthpoint.node.id, or -1 if it is missing or invalid
+    private static long parseConfiguredNodeId() {
+        String configured = System.getProperty(NODE_ID_PROPERTY);
+        if (configured == null) {
+            return -1;
+        }
+        try {
+            long nodeId = Long.parseLong(configured.trim());
+            if (nodeId >= 0 && nodeId <= MAX_NODE_ID) {
+                return nodeId;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println("Invalid " + NODE_ID_PROPERTY + " '" + configured + "', expected 0-" + MAX_NODE_ID);
+        return -1;
+    }
+
+    private static long deriveNodeId() {
+        String host;
         try {
-            Thread.sleep(1); // Small delay to show different timestamps
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
         }
+        long hash = host.hashCode() * 31L + ProcessHandle.current().pid();
+        long nodeId = (hash ^ (hash >>> 17)) & MAX_NODE_ID;
+        System.err.println("Warning: " + NODE_ID_PROPERTY + " is not set; using derived order ID node " + nodeId +
+            ". Set -D" + NODE_ID_PROPERTY + "=N (0-" + MAX_NODE_ID + ", unique per till) when more than one till" +
+            " shares the database, or two tills may issue the same order ID.");
+        return nodeId;
+    }
+
+    public static void main(String[] args) {
+        //should produce unique, increasing IDs even within the same millisecond
         System.out.println(generateOrderId());
+        System.out.println(generateOrderId());
+
+        int count = 1_000_000;
+        Set<String> ids = new HashSet<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            ids.add(generateOrderId());
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println(count + " IDs in " + elapsedMillis + " ms, unique: " + (ids.size() == count));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,222 @@
+package model;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Reads orders newest first, one page at a time, for the Recent Orders page; optionally
+ * only one day's orders.
+ *
+ * Like ProductPageSource, pages are found by keyset on (order_date, order_time, order_id)
+ * instead of OFFSET, and idx_orders_recent holds those columns followed by everything the
+ * list shows, so a page is a seek and pageSize + 1 index entries whether it is the first
+ * page or the thousandth, and the table itself is never read. Line items are not part of
+ * a page; OrderRepository.findItems() reads them when an order is opened.
+ *
+ * order_time is LocalTime.toString(), which sorts as text in time order.
+ */
+public class OrderPageSource {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final String COLUMNS =
+        "order_id, customer_name, payment_method, order_status, total_amount, order_date, order_time";
+    private static final String NEWEST_FIRST = "order_date DESC, order_time DESC, order_id DESC";
+    private static final String OLDEST_FIRST = "order_date ASC, order_time ASC, order_id ASC";
+    // Every order adds one to its day in sales_daily, so counting never touches orders
+    private static final String COUNT_ALL_SQL = "SELECT COALESCE(SUM(order_count), 0) FROM sales_daily";
+    private static final String COUNT_DAY_SQL = "SELECT order_count FROM sales_daily WHERE sale_date = ?";
+
+    private final LocalDate day;
+    private final int pageSize;
+    private final String firstSql;
+    private final String afterSql;
+    private final String fromSql;
+    private final String beforeSql;
+
+    /*
+     * @param day Only this day's orders, or null for all of them
+     * @param pageSize Orders per page
+     */
+    public OrderPageSource(LocalDate day, int pageSize) {
+        this.day = day;
+        this.pageSize = pageSize;
+
+        // Fixed strings per source, so ConnectionLease.prepare() reuses the compiled statements
+        this.firstSql = "SELECT " + COLUMNS + " FROM orders" + (day != null ? " WHERE order_date = ?" : "") +
+            " ORDER BY " + NEWEST_FIRST + " LIMIT ?";
+        this.afterSql = keyed(day != null, "<", NEWEST_FIRST);
+        this.fromSql = keyed(day != null, "<=", NEWEST_FIRST);
+        this.beforeSql = keyed(day != null, ">", OLDEST_FIRST);
+    }
+
+    /* All orders, newest first. */
+    public static OrderPageSource defaultSource() {
+        return new OrderPageSource(null, DEFAULT_PAGE_SIZE);
+    }
+
+    /* The day shown, or null for all days. */
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Page firstPage() throws SQLException {
+        return query(firstSql, null, false, 0);
+    }
+
+    /* The page of older orders after this one (empty if it was the last). */
+    public Page nextPage(Page page) throws SQLException {
+        if (page.isEmpty()) {
+            return firstPage();
+        }
+        return query(afterSql, page.last, false, page.getIndex() + 1);
+    }
+
+    /* The page of newer orders before this one; the first page if there is no full page before it. */
+    public Page previousPage(Page page) throws SQLException {
+        if (page.isEmpty() || page.getIndex() <= 1) {
+            return firstPage();
+        }
+        Page previous = query(beforeSql, page.first, true, page.getIndex() - 1);
+        // New orders only ever go on page one, but deleted ones can leave a short page; show page one instead
+        return previous.hasPrevious() ? previous : firstPage();
+    }
+
+    /* This page read again from its first order. */
+    public Page reload(Page page) throws SQLException {
+        if (page == null || page.isEmpty() || page.getIndex() == 0) {
+            return firstPage();
+        }
+        return query(fromSql, page.first, false, page.getIndex());
+    }
+
+    /* Number of orders this source pages through, for the "x of y" label. */
+    public int count() throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+            PreparedStatement statement = lease.prepare(day != null ? COUNT_DAY_SQL : COUNT_ALL_SQL);
+            if (day != null) {
+                statement.setString(1, day.toString());
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        }
+    }
+
+    /*
+     * Rows past a key, compared as a row value so SQLite seeks straight to it in the index.
+     * Within one day the date is an equality and the row value covers only the rest; SQLite
+     * does not combine "order_date = ?" with a row value that repeats it, and would read the
+     * whole day. Parameters: [day,] order_date (all days only), order_time, order_id, limit.
+     */
+    private static String keyed(boolean oneDay, String operator, String orderBy) {
+        String key = oneDay
+            ? "order_date = ? AND (order_time, order_id) " + operator + " (?, ?)"
+            : "(order_date, order_time, order_id) " + operator + " (?, ?, ?)";
+        return "SELECT " + COLUMNS + " FROM orders WHERE " + key + " ORDER BY " + orderBy + " LIMIT ?";
+    }
+
+    // backwards: rows come nearest-first and are reversed into display order
+    private Page query(String sql, Key from, boolean backwards, int index) throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+            PreparedStatement statement = lease.prepare(sql);
+            int parameter = 1;
+            if (day != null) {
+                statement.setString(parameter++, day.toString());
+            }
+            if (from != null) {
+                if (day == null) {
+                    statement.setString(parameter++, from.orderDate);
+                }
+                statement.setString(parameter++, from.orderTime);
+                statement.setString(parameter++, from.orderId);
+            }
+            statement.setInt(parameter, pageSize + 1);
+
+            List<Order> orders = new ArrayList<>(pageSize);
+            List<Key> keys = new ArrayList<>(pageSize);
+            boolean more = false;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (orders.size() == pageSize) {
+                        more = true;
+                        break;
+                    }
+                    orders.add(OrderRepository.mapOrder(resultSet));
+                    // As stored, so the next comparison matches SQLite's text ordering
+                    keys.add(new Key(resultSet.getString("order_date"), resultSet.getString("order_time"),
+                        resultSet.getString("order_id")));
+                }
+            }
+
+            if (backwards) {
+                Collections.reverse(orders);
+                Collections.reverse(keys);
+                return new Page(orders, keys, index, more, true);
+            }
+            return new Page(orders, keys, index, from != null, more);
+        }
+    }
+
+    /* Where an order sits in the list. */
+    private static class Key {
+        private final String orderDate;
+        private final String orderTime;
+        private final String orderId;
+
+        Key(String orderDate, String orderTime, String orderId) {
+            this.orderDate = orderDate;
+            this.orderTime = orderTime;
+            this.orderId = orderId;
+        }
+    }
+
+    /* One page of orders, newest first, without their items. */
+    public static class Page {
+        private final List<Order> orders;
+        private final Key first;
+        private final Key last;
+        private final int index;
+        private final boolean hasPrevious;
+        private final boolean hasNext;
+
+        Page(List<Order> orders, List<Key> keys, int index, boolean hasPrevious, boolean hasNext) {
+            this.orders = orders;
+            this.first = keys.isEmpty() ? null : keys.get(0);
+            this.last = keys.isEmpty() ? null : keys.get(keys.size() - 1);
+            this.index = index;
+            this.hasPrevious = hasPrevious;
+            this.hasNext = hasNext;
+        }
+
+        public List<Order> getOrders() {
+            return orders;
+        }
+
+        /* Zero-based page number, counted from the first page. */
+        public int getIndex() {
+            return index;
+        }
+
+        public boolean hasPrevious() {
+            return hasPrevious;
+        }
+
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        public boolean isEmpty() {
+            return orders.isEmpty();
+        }
+    }
+}
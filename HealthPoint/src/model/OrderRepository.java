@@ -0,0 +1,138 @@
+package model;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import model.DataChangeBus.ProductChange;
+
+/*
+ * Reads and writes orders and order_items, using the pooled connections' statement cache.
+ */
+public class OrderRepository {
+
+    private static final String FIND_ITEMS_SQL =
+        "SELECT product_id, product_name, quantity, unit_price, total_price " +
+        "FROM order_items WHERE order_id = ? ORDER BY orderitems_id";
+    // Both read only idx_orders_recent and idx_order_items_order
+    private static final String FIND_BY_DAY_SQL =
+        "SELECT order_id, customer_name, payment_method, order_status, total_amount, order_date, order_time " +
+        "FROM orders WHERE order_date = ? ORDER BY order_time, order_id";
+    private static final String FIND_DAY_ITEMS_SQL =
+        "SELECT i.order_id, i.product_id, i.product_name, i.quantity, i.unit_price, i.total_price " +
+        "FROM orders o JOIN order_items i ON i.order_id = o.order_id " +
+        "WHERE o.order_date = ? ORDER BY i.order_id, i.orderitems_id";
+
+    /*
+     * Saves the order, its items and the stock decrements in one transaction.
+     * @param order The order to save; its id, date and items must be set
+     * @param cartId The cart whose stock reservations the order consumes, or null
+     * @throws StockConflictException if any line no longer has enough stock
+     */
+    public static OrderBatchWriter.BatchResult placeOrder(Order order, String cartId) throws SQLException {
+        OrderBatchWriter.BatchResult result;
+        try (ConnectionLease lease = SqliteConnection.leaseWriter()) {
+            result = OrderBatchWriter.write(lease, order, cartId);
+        }
+        // Open screens show the new stock levels without reloading
+        Set<Integer> productIds = new LinkedHashSet<>();
+        for (OrderItem item : order.getOrderItems()) {
+            productIds.add(item.getProductId());
+        }
+        ProductRepository.publishChanges(ProductChange.Type.UPDATED, new ArrayList<>(productIds));
+        return result;
+    }
+
+    /*
+     * All of one day's orders with their items, oldest first, e.g. for reprinting the day's
+     * receipts. Two queries for the whole day instead of one per order.
+     */
+    public static List<Order> findByDay(LocalDate day) throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+            List<Order> orders = new ArrayList<>();
+            Map<String, Order> byId = new HashMap<>();
+            PreparedStatement statement = lease.prepare(FIND_BY_DAY_SQL);
+            statement.setString(1, day.toString());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Order order = mapOrder(resultSet);
+                    order.setOrderItems(new ArrayList<>());
+                    orders.add(order);
+                    byId.put(order.getId(), order);
+                }
+            }
+
+            statement = lease.prepare(FIND_DAY_ITEMS_SQL);
+            statement.setString(1, day.toString());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Order order = byId.get(resultSet.getString("order_id"));
+                    if (order != null) {
+                        order.getOrderItems().add(mapItem(resultSet));
+                    }
+                }
+            }
+            return orders;
+        }
+    }
+
+    /* The line items of an order, in the order they were added. */
+    public static List<OrderItem> findItems(String orderId) throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+            return queryItems(lease, orderId);
+        }
+    }
+
+    private static List<OrderItem> queryItems(ConnectionLease lease, String orderId) throws SQLException {
+        PreparedStatement statement = lease.prepare(FIND_ITEMS_SQL);
+        statement.setString(1, orderId);
+        List<OrderItem> items = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                items.add(mapItem(resultSet));
+            }
+        }
+        return items;
+    }
+
+    static Order mapOrder(ResultSet resultSet) throws SQLException {
+        return new Order(
+            resultSet.getString("order_id"),
+            resultSet.getString("customer_name"),
+            resultSet.getString("payment_method"),
+            resultSet.getDouble("total_amount"),
+            parseOrderDate(resultSet.getString("order_date"), resultSet.getString("order_time")),
+            resultSet.getString("order_status")
+        );
+    }
+
+    // OrderItem.orderId is numeric and order IDs are text, so it is left at 0
+    static OrderItem mapItem(ResultSet resultSet) throws SQLException {
+        return new OrderItem(
+            0,
+            resultSet.getInt("product_id"),
+            resultSet.getString("product_name"),
+            resultSet.getInt("quantity"),
+            resultSet.getDouble("unit_price"),
+            resultSet.getDouble("total_price")
+        );
+    }
+
+    private static LocalDateTime parseOrderDate(String date, String time) {
+        try {
+            LocalDate day = LocalDate.parse(date);
+            return time == null || time.isEmpty() ? day.atStartOfDay() : day.atTime(LocalTime.parse(time));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Counters for the ConnectionPool: how long callers wait for a lease, how often
+ * the pool runs out of free connections, and how often prepared statements are reused.
+ */
+public class PoolMetrics {
+
+    private final int capacity;
+
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder saturatedRequests = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder healthCheckFailures = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+
+    PoolMetrics(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void recordLease(long waitNanos) {
+        leases.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        int current = inUse.incrementAndGet();
+        peakInUse.accumulateAndGet(current, Math::max);
+    }
+
+    void recordRelease() {
+        inUse.decrementAndGet();
+    }
+
+    void recordSaturation() {
+        saturatedRequests.increment();
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    void recordOpen() {
+        connectionsOpened.increment();
+    }
+
+    void recordHealthCheckFailure() {
+        healthCheckFailures.increment();
+    }
+
+    void recordStatementCacheHit() {
+        statementCacheHits.increment();
+    }
+
+    void recordStatementCacheMiss() {
+        statementCacheMisses.increment();
+    }
+
+    public long getLeaseCount() {
+        return leases.sum();
+    }
+
+    public double getAverageWaitMillis() {
+        long count = leases.sum();
+        return count == 0 ? 0 : totalWaitNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    // Share of lease requests that found every connection of their kind already taken
+    public double getSaturationRatio() {
+        long count = leases.sum() + timeouts.sum();
+        return count == 0 ? 0 : (double) saturatedRequests.sum() / count;
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    public long getHealthCheckFailures() {
+        return healthCheckFailures.sum();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    public int getPeakInUse() {
+        return peakInUse.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "PoolMetrics{leases=%d, avgWait=%.3fms, maxWait=%.3fms, saturation=%.1f%%, timeouts=%d, " +
+            "inUse=%d/%d, peakInUse=%d, opened=%d, healthCheckFailures=%d, statementCache=%d hits/%d misses}",
+            getLeaseCount(), getAverageWaitMillis(), getMaxWaitMillis(), getSaturationRatio() * 100,
+            getTimeoutCount(), getInUse(), capacity, getPeakInUse(), getConnectionsOpened(),
+            getHealthCheckFailures(), getStatementCacheHits(), getStatementCacheMisses());
+    }
+}
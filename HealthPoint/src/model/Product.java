@@ -1,6 +1,7 @@
 package model;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 public class Product {
     private int id;
@@ -11,6 +12,8 @@ public class Product {
     private String status;
     private String imagePath;
     private LocalDateTime dateAdded;
+    // SHA-256 of the image file, naming its thumbnail in ThumbnailStore; null until generated
+    private String thumbnailKey;
 
     public Product() {}
 
@@ -86,6 +89,10 @@ public class Product {
         return dateAdded;
     }
 
+    public String getThumbnailKey() {
+        return thumbnailKey;
+    }
+
     // Setters
     public void setId(int id) {
         this.id = id;
@@ -112,6 +119,10 @@ public class Product {
     }
 
     public void setImagePath(String imagePath) {
+        // The thumbnail belongs to the old image
+        if (this.imagePath != null && !this.imagePath.equals(imagePath)) {
+            this.thumbnailKey = null;
+        }
         this.imagePath = imagePath;
     }
 
@@ -119,6 +130,27 @@ public class Product {
         this.dateAdded = dateAdded;
     }
 
+    public void setThumbnailKey(String thumbnailKey) {
+        this.thumbnailKey = thumbnailKey;
+    }
+
+    /*
+     * Whether the other product is the same row with the same values, so a list can keep
+     * this instance instead of swapping in the other (see ListReconciler).
+     */
+    public boolean hasSameValues(Product other) {
+        return other != null
+            && id == other.id
+            && Double.compare(price, other.price) == 0
+            && stock == other.stock
+            && Objects.equals(name, other.name)
+            && Objects.equals(category, other.category)
+            && Objects.equals(status, other.status)
+            && Objects.equals(imagePath, other.imagePath)
+            && Objects.equals(dateAdded, other.dateAdded)
+            && Objects.equals(thumbnailKey, other.thumbnailKey);
+    }
+
     @Override
     public String toString() {
         return "Product{" +
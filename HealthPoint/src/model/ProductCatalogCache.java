@@ -0,0 +1,217 @@
+package model;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/*
+ * One shared, versioned copy of meds_product for every screen.
+ *
+ * Each row carries updated_at, the catalog version of its last change (stamped by
+ * triggers, see DatabaseSchema), and deletions leave a tombstone with their version. The
+ * first refresh() reads the whole table; after that it only reads rows with
+ * updated_at > the version already held, plus new tombstones, so reopening a screen
+ * costs one small indexed query, or none if the cache was checked a moment ago and
+ * nothing was written through the repositories since.
+ *
+ * Snapshots are immutable: a refresh that finds changes builds a new one, and readers
+ * keep using whichever snapshot they got. The Product objects are shared, so callers
+ * must not modify them.
+ *
+ * Catalogs larger than MAX_PRODUCTS are not cached at all (refresh() returns null);
+ * the screens then stay on paged and full-text queries so memory does not grow with
+ * the catalog.
+ */
+public class ProductCatalogCache {
+
+    public static final String MAX_PRODUCTS_PROPERTY = "healthpoint.catalogcache.max";
+
+    private static final int DEFAULT_MAX_PRODUCTS = 50_000;
+    // How long a snapshot is trusted without asking the database, when nothing was written here
+    private static final long MAX_STALE_MILLIS = 2_000;
+
+    private static final String COLUMNS =
+        "product_id, name, category, price, stock, status, image_path, date_added, thumbnail_key";
+    private static final String VERSION_SQL =
+        "SELECT next_value FROM id_sequences WHERE sequence_name = 'catalog_version'";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM meds_product";
+    private static final String ALL_SQL =
+        "SELECT " + COLUMNS + " FROM meds_product";
+    private static final String CHANGED_SQL =
+        "SELECT " + COLUMNS + " FROM meds_product WHERE updated_at > ? AND updated_at <= ?";
+    private static final String DELETED_SQL =
+        "SELECT product_id FROM meds_product_deletions WHERE version > ? AND version <= ?";
+
+    private static final ProductCatalogCache instance = new ProductCatalogCache(resolveMaxProducts());
+
+    private final int maxProducts;
+    private volatile Snapshot snapshot;
+    // Set by the repositories after a write, so the next refresh() goes to the database
+    private volatile boolean invalidated = true;
+    private long checkedAt;
+
+    private ProductCatalogCache(int maxProducts) {
+        this.maxProducts = maxProducts;
+    }
+
+    public static ProductCatalogCache getInstance() {
+        return instance;
+    }
+
+    /*
+     * Brings the cache up to date and returns it. Blocking; call off the FX thread.
+     * @return The current snapshot, or null when the catalog is too large to cache
+     */
+    public synchronized Snapshot refresh() throws SQLException {
+        long now = System.currentTimeMillis();
+        Snapshot current = snapshot;
+        if (current != null && !invalidated && now - checkedAt < MAX_STALE_MILLIS) {
+            return current;
+        }
+        // Cleared before reading, so a write that lands during the read is picked up next time
+        invalidated = false;
+        try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+            snapshot = current == null ? loadAll(lease) : applyChanges(lease, current);
+        } catch (SQLException e) {
+            invalidated = true;
+            throw e;
+        }
+        checkedAt = now;
+        return snapshot;
+    }
+
+    /* Marks the cache out of date after products were written through the repositories. */
+    public void invalidate() {
+        invalidated = true;
+    }
+
+    private Snapshot loadAll(ConnectionLease lease) throws SQLException {
+        // Read first: every change up to this version is committed and visible below
+        long version = readVersion(lease);
+        int count;
+        try (ResultSet resultSet = lease.prepare(COUNT_SQL).executeQuery()) {
+            count = resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+        if (count > maxProducts) {
+            return null;
+        }
+        TreeMap<Integer, Product> products = new TreeMap<>();
+        try (ResultSet resultSet = lease.prepare(ALL_SQL).executeQuery()) {
+            while (resultSet.next()) {
+                Product product = ProductRepository.mapRow(resultSet);
+                products.put(product.getId(), product);
+            }
+        }
+        System.out.println("Product catalog cached: " + products.size() + " products at version " + version);
+        return new Snapshot(version, products);
+    }
+
+    private Snapshot applyChanges(ConnectionLease lease, Snapshot current) throws SQLException {
+        long version = readVersion(lease);
+        if (version == current.version) {
+            return current;
+        }
+        List<Product> changed = new ArrayList<>();
+        PreparedStatement changedStatement = lease.prepare(CHANGED_SQL);
+        changedStatement.setLong(1, current.version);
+        changedStatement.setLong(2, version);
+        try (ResultSet resultSet = changedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                changed.add(ProductRepository.mapRow(resultSet));
+            }
+        }
+        List<Integer> deleted = new ArrayList<>();
+        PreparedStatement deletedStatement = lease.prepare(DELETED_SQL);
+        deletedStatement.setLong(1, current.version);
+        deletedStatement.setLong(2, version);
+        try (ResultSet resultSet = deletedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                deleted.add(resultSet.getInt(1));
+            }
+        }
+
+        TreeMap<Integer, Product> products = new TreeMap<>(current.products);
+        for (int productId : deleted) {
+            products.remove(productId);
+        }
+        for (Product product : changed) {
+            products.put(product.getId(), product);
+        }
+        if (products.size() > maxProducts) {
+            System.out.println("Product catalog outgrew the cache (" + products.size() + " products); no longer cached");
+            return null;
+        }
+        return new Snapshot(version, products);
+    }
+
+    private static long readVersion(ConnectionLease lease) throws SQLException {
+        try (ResultSet resultSet = lease.prepare(VERSION_SQL).executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    private static int resolveMaxProducts() {
+        String configured = System.getProperty(MAX_PRODUCTS_PROPERTY);
+        if (configured != null) {
+            try {
+                int maxProducts = Integer.parseInt(configured.trim());
+                if (maxProducts >= 0) {
+                    return maxProducts;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+            System.err.println("Invalid " + MAX_PRODUCTS_PROPERTY + " '" + configured + "', using default");
+        }
+        return DEFAULT_MAX_PRODUCTS;
+    }
+
+    /* The catalog as of one version. */
+    public static class Snapshot {
+        private final long version;
+        private final NavigableMap<Integer, Product> products;
+        private List<Product> sellable;
+
+        Snapshot(long version, TreeMap<Integer, Product> products) {
+            this.version = version;
+            this.products = Collections.unmodifiableNavigableMap(products);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return products.size();
+        }
+
+        /* The product with this ID, or null. */
+        public Product get(int productId) {
+            return products.get(productId);
+        }
+
+        /* Every product, by product_id. */
+        public List<Product> getProducts() {
+            return new ArrayList<>(products.values());
+        }
+
+        /* Products that can be sold right now (Available, in stock), by product_id. */
+        public synchronized List<Product> getSellable() {
+            if (sellable == null) {
+                List<Product> matching = new ArrayList<>();
+                for (Product product : products.values()) {
+                    if ("Available".equals(product.getStatus()) && product.getStock() > 0) {
+                        matching.add(product);
+                    }
+                }
+                sellable = Collections.unmodifiableList(matching);
+            }
+            return sellable;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Hands out product IDs per category from blocks reserved in the id_sequences table (hi/lo).
+ *
+ * Each category keeps its own block of BLOCK_SIZE consecutive IDs in memory, so creating a
+ * product normally costs no database access at all; only when a category's block runs out
+ * is one UPDATE ... RETURNING issued to reserve the next block. product_id is a single
+ * primary key across all categories, so every category draws its blocks from the same
+ * 'meds_product' counter row, which keeps IDs unique across categories and processes.
+ */
+public class ProductIdAllocator {
+
+    static final String SEQUENCE_NAME = "meds_product";
+    private static final int BLOCK_SIZE = 20;
+
+    // Never hand out an ID at or below one already in the table (rows added by other tools or
+    // by the old random generator). MAX() on the INTEGER PRIMARY KEY is a single index seek.
+    private static final String RESERVE_BLOCK_SQL =
+        "UPDATE id_sequences SET next_value = " +
+        "MAX(next_value, (SELECT COALESCE(MAX(product_id), 0) + 1 FROM meds_product)) + ? " +
+        "WHERE sequence_name = ? RETURNING next_value";
+    // First ID of the block RESERVE_BLOCK_SQL would reserve next, read without reserving it
+    private static final String PEEK_BLOCK_SQL =
+        "SELECT MAX(next_value, (SELECT COALESCE(MAX(product_id), 0) + 1 FROM meds_product)) " +
+        "FROM id_sequences WHERE sequence_name = ?";
+
+    private static final Map<String, Block> blocks = new HashMap<>();
+
+    /*
+     * Takes the next ID for a category.
+     * @param connection A writer connection in autocommit mode, used only when a new block is needed
+     * @param categoryCode The 3-letter category code
+     */
+    public static synchronized int next(Connection connection, String categoryCode) throws SQLException {
+        Block block = blockFor(connection, categoryCode);
+        return block.next++;
+    }
+
+    /*
+     * Returns the ID the next call to next() will most likely hand out for the category, for
+     * display. Never writes: when the category has no IDs left in memory it reads where the
+     * next block would start, which another till may take first, so only next() is binding.
+     * @param connection Any connection, read-only is enough
+     * @param categoryCode The 3-letter category code
+     */
+    public static int peek(Connection connection, String categoryCode) throws SQLException {
+        synchronized (ProductIdAllocator.class) {
+            Block block = blocks.get(categoryCode);
+            if (block != null && block.next < block.end) {
+                return block.next;
+            }
+        }
+        if (connection == null) {
+            throw new SQLException("No database connection to read product IDs");
+        }
+        try (PreparedStatement statement = connection.prepareStatement(PEEK_BLOCK_SQL)) {
+            statement.setString(1, SEQUENCE_NAME);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new SQLException("Missing id_sequences row '" + SEQUENCE_NAME + "'");
+                }
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    private static Block blockFor(Connection connection, String categoryCode) throws SQLException {
+        Block block = blocks.get(categoryCode);
+        if (block == null || block.next >= block.end) {
+            block = reserveBlock(connection);
+            blocks.put(categoryCode, block);
+        }
+        return block;
+    }
+
+    private static Block reserveBlock(Connection connection) throws SQLException {
+        if (connection == null) {
+            throw new SQLException("No database connection to reserve product IDs");
+        }
+        if (!connection.getAutoCommit()) {
+            // A block reserved inside a transaction that later rolls back could be handed out twice
+            throw new IllegalStateException("Product ID blocks must be reserved outside a transaction");
+        }
+        try (PreparedStatement statement = connection.prepareStatement(RESERVE_BLOCK_SQL)) {
+            statement.setInt(1, BLOCK_SIZE);
+            statement.setString(2, SEQUENCE_NAME);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new SQLException("Missing id_sequences row '" + SEQUENCE_NAME + "'");
+                }
+                int end = resultSet.getInt(1);
+                return new Block(end - BLOCK_SIZE, end);
+            }
+        }
+    }
+
+    /* IDs [next, end) are reserved for one category in this process. */
+    private static class Block {
+        int next;
+        final int end;
+
+        Block(int start, int end) {
+            this.next = start;
+            this.end = end;
+        }
+    }
+}
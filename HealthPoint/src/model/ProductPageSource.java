@@ -0,0 +1,271 @@
+package model;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * Reads meds_product one page at a time for the inventory table, sorted in the database.
+ *
+ * Pages are found by keyset ("rows after the last one shown") rather than OFFSET, so
+ * every page costs the same however deep into the catalog it is: SQLite seeks to
+ * (sort value, product_id) in the matching index and reads pageSize + 1 rows. The extra
+ * row only tells whether there is another page. product_id breaks ties, so rows with
+ * equal sort values are neither skipped nor repeated.
+ *
+ * A source is immutable; changing the sort means a new source and starting from page one.
+ */
+public class ProductPageSource {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final String COLUMNS =
+        "product_id, name, category, price, stock, status, image_path, date_added, thumbnail_key";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM meds_product";
+
+    /* Columns the table can be sorted by; each has an index on (column, product_id). */
+    public enum SortColumn {
+        ID("product_id"),
+        NAME("name"),
+        CATEGORY("category"),
+        PRICE("price"),
+        STOCK("stock"),
+        STATUS("status"),
+        DATE_ADDED("date_added");
+
+        private final String column;
+
+        SortColumn(String column) {
+            this.column = column;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        /* The product's value in this column. */
+        Object valueOf(Product product) {
+            switch (this) {
+                case NAME:
+                    return product.getName();
+                case CATEGORY:
+                    return product.getCategory();
+                case PRICE:
+                    return product.getPrice();
+                case STOCK:
+                    return product.getStock();
+                case STATUS:
+                    return product.getStatus();
+                case DATE_ADDED:
+                    return product.getDateAdded();
+                default:
+                    return product.getId();
+            }
+        }
+    }
+
+    private final SortColumn sortColumn;
+    private final boolean ascending;
+    private final int pageSize;
+    private final String firstSql;
+    private final String afterSql;
+    private final String fromSql;
+    private final String beforeSql;
+
+    public ProductPageSource(SortColumn sortColumn, boolean ascending, int pageSize) {
+        this.sortColumn = sortColumn;
+        this.ascending = ascending;
+        this.pageSize = pageSize;
+
+        String forward = ascending ? "ASC" : "DESC";
+        String backward = ascending ? "DESC" : "ASC";
+        // Fixed strings per sort, so ConnectionLease.prepare() reuses the compiled statements
+        this.firstSql = "SELECT " + COLUMNS + " FROM meds_product ORDER BY " + orderBy(forward) + " LIMIT ?";
+        this.afterSql = keyed(ascending ? ">" : "<", forward);
+        this.fromSql = keyed(ascending ? ">=" : "<=", forward);
+        this.beforeSql = keyed(ascending ? "<" : ">", backward);
+    }
+
+    /* Newest products first, as the inventory table has always opened. */
+    public static ProductPageSource defaultSource() {
+        return new ProductPageSource(SortColumn.ID, false, DEFAULT_PAGE_SIZE);
+    }
+
+    public SortColumn getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /*
+     * Whether an edit moves the product in this sort order, so the page it was on has to be
+     * read again rather than patched (the page's keys would no longer match its rows).
+     */
+    public boolean movesInOrder(Product before, Product after) {
+        return !Objects.equals(sortColumn.valueOf(before), sortColumn.valueOf(after));
+    }
+
+    public Page firstPage() throws SQLException {
+        return query(firstSql, null, false, 0);
+    }
+
+    /* The page after this one (empty if it was the last). */
+    public Page nextPage(Page page) throws SQLException {
+        if (page.isEmpty()) {
+            return firstPage();
+        }
+        return query(afterSql, page.last, false, page.getIndex() + 1);
+    }
+
+    /* The page before this one; the first page if there is no full page before it. */
+    public Page previousPage(Page page) throws SQLException {
+        if (page.isEmpty() || page.getIndex() <= 1) {
+            return firstPage();
+        }
+        Page previous = query(beforeSql, page.first, true, page.getIndex() - 1);
+        // Rows deleted meanwhile can leave a short page at the start; show page one instead
+        return previous.hasPrevious() ? previous : firstPage();
+    }
+
+    /* This page read again from its first row, e.g. after products were added or edited. */
+    public Page reload(Page page) throws SQLException {
+        if (page == null || page.isEmpty() || page.getIndex() == 0) {
+            return firstPage();
+        }
+        // If the first row was deleted this starts at the row that followed it
+        return query(fromSql, page.first, false, page.getIndex());
+    }
+
+    /* Number of products in the catalog, for the "x of y" label. */
+    public static int countAll() throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+            try (ResultSet resultSet = lease.prepare(COUNT_SQL).executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        }
+    }
+
+    private String orderBy(String direction) {
+        return sortColumn == SortColumn.ID
+            ? "product_id " + direction
+            : sortColumn.getColumn() + " " + direction + ", product_id " + direction;
+    }
+
+    /*
+     * Rows past a key. For product_id that is one range. For other columns SQLite would only
+     * seek on the sort value and then scan every row sharing it (half the table for status),
+     * so the rest of the key's own value group and the groups beyond it are read as two
+     * index ranges and merged. Parameters: ?1 sort value, ?2 product_id, ?3 limit.
+     */
+    private String keyed(String operator, String direction) {
+        if (sortColumn == SortColumn.ID) {
+            return "SELECT " + COLUMNS + " FROM meds_product WHERE product_id " + operator + " ?" +
+                " ORDER BY product_id " + direction + " LIMIT ?";
+        }
+        String column = sortColumn.getColumn();
+        String beyond = operator.substring(0, 1);
+        return "SELECT * FROM (SELECT " + COLUMNS + " FROM meds_product WHERE " + column + " = ?1" +
+            " AND product_id " + operator + " ?2 ORDER BY product_id " + direction + " LIMIT ?3)" +
+            " UNION ALL SELECT * FROM (SELECT " + COLUMNS + " FROM meds_product WHERE " + column + " " + beyond + " ?1" +
+            " ORDER BY " + orderBy(direction) + " LIMIT ?3)" +
+            " ORDER BY " + orderBy(direction) + " LIMIT ?3";
+    }
+
+    // backwards: rows come nearest-first and are reversed into display order
+    private Page query(String sql, Key from, boolean backwards, int index) throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+            PreparedStatement statement = lease.prepare(sql);
+            int parameter = 1;
+            if (from != null) {
+                if (sortColumn != SortColumn.ID) {
+                    statement.setObject(parameter++, from.sortValue);
+                }
+                statement.setInt(parameter++, from.productId);
+            }
+            statement.setInt(parameter, pageSize + 1);
+
+            List<Product> products = new ArrayList<>(pageSize);
+            List<Key> keys = new ArrayList<>(pageSize);
+            boolean more = false;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (products.size() == pageSize) {
+                        more = true;
+                        break;
+                    }
+                    products.add(ProductRepository.mapRow(resultSet));
+                    // Kept as stored (date_added mixes integers and text) so comparisons match SQLite's
+                    keys.add(new Key(resultSet.getObject(sortColumn.getColumn()), resultSet.getInt("product_id")));
+                }
+            }
+
+            if (backwards) {
+                Collections.reverse(products);
+                Collections.reverse(keys);
+                return new Page(products, keys, index, more, true);
+            }
+            return new Page(products, keys, index, from != null, more);
+        }
+    }
+
+    /* Where a row sits in the sort order. */
+    private static class Key {
+        private final Object sortValue;
+        private final int productId;
+
+        Key(Object sortValue, int productId) {
+            this.sortValue = sortValue;
+            this.productId = productId;
+        }
+    }
+
+    /* One page of products in display order. */
+    public static class Page {
+        private final List<Product> products;
+        private final Key first;
+        private final Key last;
+        private final int index;
+        private final boolean hasPrevious;
+        private final boolean hasNext;
+
+        Page(List<Product> products, List<Key> keys, int index, boolean hasPrevious, boolean hasNext) {
+            this.products = products;
+            this.first = keys.isEmpty() ? null : keys.get(0);
+            this.last = keys.isEmpty() ? null : keys.get(keys.size() - 1);
+            this.index = index;
+            this.hasPrevious = hasPrevious;
+            this.hasNext = hasNext;
+        }
+
+        public List<Product> getProducts() {
+            return products;
+        }
+
+        /* Zero-based page number, counted from the first page. */
+        public int getIndex() {
+            return index;
+        }
+
+        public boolean hasPrevious() {
+            return hasPrevious;
+        }
+
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        public boolean isEmpty() {
+            return products.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package model;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.DataChangeBus.ProductChange;
+
+/*
+ * All reads and writes of meds_product go through here.
+ *
+ * Statements come from ConnectionLease.prepare(), so each SQL string is compiled once per
+ * pooled connection and reused afterwards; the screens no longer prepare and close a
+ * statement on every load or save.
+ *
+ * Every committed write is announced on DataChangeBus, so open screens can patch their
+ * lists instead of reloading the table.
+ */
+public class ProductRepository {
+
+    private static final String COLUMNS =
+        "product_id, name, category, price, stock, status, image_path, date_added, thumbnail_key";
+
+    private static final String FIND_BY_ID_SQL =
+        "SELECT " + COLUMNS + " FROM meds_product WHERE product_id = ?";
+    private static final String INSERT_SQL =
+        "INSERT INTO meds_product (product_id, name, category, price, stock, status, image_path, date_added) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    // A changed image invalidates the thumbnail key (CASE sees the old image_path)
+    private static final String UPDATE_SQL =
+        "UPDATE meds_product SET name=?, category=?, price=?, stock=?, status=?," +
+        " thumbnail_key = CASE WHEN image_path IS ? THEN thumbnail_key ELSE NULL END, image_path=?" +
+        " WHERE product_id=?";
+    private static final String DELETE_SQL =
+        "DELETE FROM meds_product WHERE product_id=?";
+
+    /*
+     * Saves a new product under an ID allocated for its category.
+     * @param product The product to add; its id and dateAdded are filled in
+     * @return true if the row was written
+     */
+    public static boolean insert(Product product) throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseWriter()) {
+            int productId = InventoryIdGenerator.generateIdForCategory(lease.getConnection(), product.getCategory());
+            long now = System.currentTimeMillis() / 1000;
+            String imagePath = product.getImagePath() != null ? product.getImagePath() : "";
+
+            PreparedStatement statement = lease.prepare(INSERT_SQL);
+            statement.setInt(1, productId);
+            statement.setString(2, product.getName());
+            statement.setString(3, product.getCategory());
+            statement.setDouble(4, product.getPrice());
+            statement.setInt(5, product.getStock());
+            statement.setString(6, product.getStatus());
+            statement.setString(7, imagePath);
+            statement.setLong(8, now);
+
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+            product.setId(productId);
+            product.setImagePath(imagePath);
+            product.setDateAdded(toLocalDateTime(now));
+        }
+        ThumbnailStore.attachAsync(product);
+        publishChanges(ProductChange.Type.ADDED, List.of(product.getId()));
+        return true;
+    }
+
+    /* Writes the product's editable fields. Returns false if the product no longer exists. */
+    public static boolean update(Product product) throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseWriter()) {
+            PreparedStatement statement = lease.prepare(UPDATE_SQL);
+            statement.setString(1, product.getName());
+            statement.setString(2, product.getCategory());
+            statement.setDouble(3, product.getPrice());
+            statement.setInt(4, product.getStock());
+            statement.setString(5, product.getStatus());
+            statement.setString(6, product.getImagePath());
+            statement.setString(7, product.getImagePath());
+            statement.setInt(8, product.getId());
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+        }
+        // Finds the existing thumbnail by content hash when the image did not change
+        ThumbnailStore.attachAsync(product);
+        publishChanges(ProductChange.Type.UPDATED, List.of(product.getId()));
+        return true;
+    }
+
+    /* Removes the product. Returns false if it was already gone. */
+    public static boolean delete(int productId) throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseWriter()) {
+            PreparedStatement statement = lease.prepare(DELETE_SQL);
+            statement.setInt(1, productId);
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+        }
+        ProductCatalogCache.getInstance().invalidate();
+        DataChangeBus.publish(List.of(new ProductChange(ProductChange.Type.REMOVED, productId, null)));
+        return true;
+    }
+
+    /*
+     * Announces committed changes to these products on DataChangeBus. The rows are read back
+     * so listeners get every column as stored; a row that is gone is announced as removed.
+     * Also marks ProductCatalogCache stale, so the next screen to open reads the delta.
+     */
+    static void publishChanges(ProductChange.Type type, List<Integer> productIds) {
+        ProductCatalogCache.getInstance().invalidate();
+        if (!DataChangeBus.hasListeners()) {
+            return;
+        }
+        List<ProductChange> changes = new ArrayList<>(productIds.size());
+        try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+            PreparedStatement statement = lease.prepare(FIND_BY_ID_SQL);
+            for (int productId : productIds) {
+                statement.setInt(1, productId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    changes.add(resultSet.next()
+                        ? new ProductChange(type, productId, mapRow(resultSet))
+                        : new ProductChange(ProductChange.Type.REMOVED, productId, null));
+                }
+            }
+        } catch (SQLException e) {
+            // The write itself succeeded; screens catch up on their next reload
+            System.err.println("Could not read changed products: " + e.getMessage());
+            return;
+        }
+        DataChangeBus.publish(changes);
+    }
+
+    static Product mapRow(ResultSet resultSet) throws SQLException {
+        Product product = new Product(
+            resultSet.getInt("product_id"),
+            resultSet.getString("name"),
+            resultSet.getString("category"),
+            resultSet.getDouble("price"),
+            resultSet.getInt("stock"),
+            resultSet.getString("status"),
+            resultSet.getString("image_path"),
+            parseDateAdded(resultSet.getString("date_added"))
+        );
+        product.setThumbnailKey(resultSet.getString("thumbnail_key"));
+        return product;
+    }
+
+    // date_added is unix seconds for rows added by the app, but older rows hold ISO date text
+    static LocalDateTime parseDateAdded(String value) {
+        if (value == null || value.isEmpty()) {
+            return LocalDateTime.now();
+        }
+        try {
+            if (value.chars().allMatch(Character::isDigit)) {
+                return toLocalDateTime(Long.parseLong(value));
+            }
+            if (value.contains("T") || value.contains(" ")) {
+                return LocalDateTime.parse(value.replace(" ", "T"));
+            }
+            return LocalDate.parse(value).atStartOfDay();
+        } catch (Exception e) {
+            return LocalDateTime.now();
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long unixSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(unixSeconds), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,183 @@
+package model;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Searches sellable products in the database through the meds_product_fts full-text index.
+ *
+ * Matching and ranking happen inside SQLite (FTS5 with bm25, name weighted above
+ * category), so the cost of a search depends on the matching rows and the page size,
+ * not on how many products are in the catalog. Every word of the query is a prefix
+ * match ("para cet" finds "Paracetamol Cetirizine ..."); with no words the page simply
+ * lists sellable products by ID.
+ *
+ * Pages continue from the last row of the previous page (keyset) rather than an OFFSET:
+ * product_id for listings, (score, product_id) for searches. A checkout that sells a
+ * product out, or a product added meanwhile, then shifts nothing, so infinite scroll
+ * neither skips nor repeats rows. (A search score can still move slightly when products
+ * are added, since bm25 depends on the whole index; callers drop IDs they already have.)
+ */
+public class ProductSearchService {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    private static final String COLUMNS =
+        "p.product_id, p.name, p.category, p.price, p.stock, p.status, p.image_path, p.date_added, p.thumbnail_key";
+    private static final String SELLABLE = "p.status = 'Available' AND p.stock > 0";
+    private static final String SCORE = "bm25(meds_product_fts, 10.0, 2.0)";
+
+    // Parameters: [category,] last product_id, limit
+    private static final String BROWSE_SQL =
+        "SELECT " + COLUMNS + " FROM meds_product p WHERE " + SELLABLE +
+        " AND p.product_id > ? ORDER BY p.product_id LIMIT ?";
+    private static final String BROWSE_CATEGORY_SQL =
+        "SELECT " + COLUMNS + " FROM meds_product p WHERE " + SELLABLE + " AND p.category = ?" +
+        " AND p.product_id > ? ORDER BY p.product_id LIMIT ?";
+    // Parameters: match, [category,] last score, last product_id, limit
+    private static final String SEARCH_SQL = search("");
+    private static final String SEARCH_CATEGORY_SQL = search(" AND p.category = ?");
+
+    /*
+     * The first page of sellable products matching the query.
+     * @param query Words typed by the user; null or blank lists everything
+     * @param category Category to restrict to; null or "All Categories" for any
+     * @param pageSize Products per page
+     */
+    public static SearchPage searchAvailable(String query, String category, int pageSize) throws SQLException {
+        return query(query, category, pageSize, 0, Double.NEGATIVE_INFINITY, Integer.MIN_VALUE);
+    }
+
+    /* The first DEFAULT_PAGE_SIZE matches. */
+    public static SearchPage searchAvailable(String query, String category) throws SQLException {
+        return searchAvailable(query, category, DEFAULT_PAGE_SIZE);
+    }
+
+    /* The page after this one, for the same query and category (empty if there is none). */
+    public static SearchPage nextPage(SearchPage previous) throws SQLException {
+        if (previous.getProducts().isEmpty()) {
+            return previous;
+        }
+        return query(previous.query, previous.category, previous.pageSize, previous.page + 1,
+            previous.lastScore, previous.lastProductId);
+    }
+
+    private static SearchPage query(String query, String category, int pageSize, int page,
+                                    double afterScore, int afterProductId) throws SQLException {
+        String matchExpression = toMatchExpression(query);
+        boolean filterCategory = category != null && !category.isEmpty() && !"All Categories".equals(category);
+        String sql = matchExpression == null
+            ? (filterCategory ? BROWSE_CATEGORY_SQL : BROWSE_SQL)
+            : (filterCategory ? SEARCH_CATEGORY_SQL : SEARCH_SQL);
+
+        try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+            PreparedStatement statement = lease.prepare(sql);
+            int index = 1;
+            if (matchExpression != null) {
+                statement.setString(index++, matchExpression);
+            }
+            if (filterCategory) {
+                statement.setString(index++, category);
+            }
+            if (matchExpression != null) {
+                statement.setDouble(index++, afterScore);
+            }
+            statement.setInt(index++, afterProductId);
+            // One extra row tells us whether there is a next page
+            statement.setInt(index, pageSize + 1);
+
+            List<Product> products = new ArrayList<>(Math.min(pageSize, 64));
+            boolean hasMore = false;
+            double lastScore = afterScore;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (products.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    products.add(ProductRepository.mapRow(resultSet));
+                    if (matchExpression != null) {
+                        // Read back exactly as SQLite compares it
+                        lastScore = resultSet.getDouble("score");
+                    }
+                }
+            }
+            int lastProductId = products.isEmpty() ? afterProductId : products.get(products.size() - 1).getId();
+            return new SearchPage(products, query, category, page, pageSize, hasMore, lastScore, lastProductId);
+        }
+    }
+
+    // The score is computed once per row in the inner query and compared as a row value outside it
+    private static String search(String categoryFilter) {
+        return "SELECT * FROM (SELECT " + COLUMNS + ", " + SCORE + " AS score" +
+            " FROM meds_product_fts f JOIN meds_product p ON p.product_id = f.rowid" +
+            " WHERE meds_product_fts MATCH ? AND " + SELLABLE + categoryFilter + ")" +
+            " WHERE (score, product_id) > (?, ?) ORDER BY score, product_id LIMIT ?";
+    }
+
+    /*
+     * Turns free text into an FTS5 query: each word becomes a quoted prefix term and all
+     * of them must match. Quoting keeps FTS5 operators and punctuation in user input from
+     * being interpreted as query syntax. Returns null when there are no words.
+     */
+    static String toMatchExpression(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder expression = new StringBuilder();
+        for (String word : query.trim().split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (expression.length() > 0) {
+                expression.append(' ');
+            }
+            expression.append('"').append(word).append("\"*");
+        }
+        return expression.length() == 0 ? null : expression.toString();
+    }
+
+    /* A page of search results, and where the next one starts. */
+    public static class SearchPage {
+        private final List<Product> products;
+        private final String query;
+        private final String category;
+        private final int page;
+        private final int pageSize;
+        private final boolean hasMore;
+        private final double lastScore;
+        private final int lastProductId;
+
+        SearchPage(List<Product> products, String query, String category, int page, int pageSize,
+                   boolean hasMore, double lastScore, int lastProductId) {
+            this.products = products;
+            this.query = query;
+            this.category = category;
+            this.page = page;
+            this.pageSize = pageSize;
+            this.hasMore = hasMore;
+            this.lastScore = lastScore;
+            this.lastProductId = lastProductId;
+        }
+
+        public List<Product> getProducts() {
+            return products;
+        }
+
+        /* Zero-based page number, counted from the first page. */
+        public int getPage() {
+            return page;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public boolean hasMore() {
+            return hasMore;
+        }
+    }
+}
@@ -1,26 +1,39 @@
 package model;
 
+import javafx.application.Platform;
 import javafx.stage.FileChooser;
 
 
 import javafx.stage.Stage;
 import javafx.scene.control.Alert;
-import java.io.FileWriter;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ReceiptGenerator {
     
-    private static final String PHARMACY_NAME = "HEALTH POINT";
-    private static final String PHARMACY_ADDRESS_LINE1 = "Brgy. 123";
-    private static final String PHARMACY_ADDRESS_LINE2 = "Ormoc City 6541, Leyte";
-    private static final String PHARMACY_PHONE = "Phone: 0012-345-6789";
+    // One renderer reuses its buffers for every receipt; the lock keeps writers from sharing them
+    // (a ReentrantLock, since the writers are virtual threads and the write blocks on I/O)
+    private static final ReceiptRenderer renderer = new ReceiptRenderer();
+    private static final ReentrantLock rendererLock = new ReentrantLock();
     
+    // Asks where to save the receipt for an order placed now, then writes it in the background.
+    // Returns true once a file was chosen; the outcome of the write is reported in an alert.
     public static boolean generateReceipt(Stage parentStage, String orderId, String customerName, 
                                         String paymentMethod, double totalAmount, 
                                         List<OrderItem> orderItems) {
+        return generateReceipt(parentStage, orderId, customerName, paymentMethod, totalAmount, orderItems, LocalDateTime.now());
+    }
+    
+    // As above, dated orderDate, e.g. when printing an earlier order again
+    public static boolean generateReceipt(Stage parentStage, String orderId, String customerName, 
+                                        String paymentMethod, double totalAmount, 
+                                        List<OrderItem> orderItems, LocalDateTime orderDate) {
         try {
             // File chooser to save receipt
             FileChooser fileChooser = new FileChooser();
@@ -39,21 +52,30 @@ public class ReceiptGenerator {
                     filePath += ".txt";
                 }
                 
-                // Create text receipt
-                try (FileWriter writer = new FileWriter(filePath)) {
-                    writeReceiptContent(writer, orderId, customerName, paymentMethod, totalAmount, orderItems);
-                }
-                
-                // Show success message
-                showAlert(Alert.AlertType.INFORMATION, "Receipt Generated", 
-                         "Receipt saved successfully!\nLocation: " + filePath);
-                
-                // Optional: Open the text file automatically
-                try {
-                    java.awt.Desktop.getDesktop().open(new File(filePath));
-                } catch (Exception e) {
-                    System.out.println("Could not open text file automatically: " + e.getMessage());
-                }
+                // Write and open the file on an I/O thread; the dialog above must stay on the FX thread
+                String receiptPath = filePath;
+                List<OrderItem> items = new ArrayList<>(orderItems);
+                IoExecutor.execute("receipt.write", () -> {
+                    try {
+                        writeReceipt(Paths.get(receiptPath), orderId, paymentMethod, orderDate, totalAmount, items);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        Platform.runLater(() -> showAlert(Alert.AlertType.ERROR, "Receipt Generation Error", 
+                                 "Error generating receipt: " + e.getMessage()));
+                        return;
+                    }
+                    
+                    // Show success message
+                    Platform.runLater(() -> showAlert(Alert.AlertType.INFORMATION, "Receipt Generated", 
+                             "Receipt saved successfully!\nLocation: " + receiptPath));
+                    
+                    // Optional: Open the text file automatically
+                    try {
+                        java.awt.Desktop.getDesktop().open(new File(receiptPath));
+                    } catch (Exception e) {
+                        System.out.println("Could not open text file automatically: " + e.getMessage());
+                    }
+                });
                 
                 return true;
             }
@@ -67,77 +89,37 @@ public class ReceiptGenerator {
         return false;
     }
     
-    private static void writeReceiptContent(FileWriter writer, String orderId, String customerName, 
-                                          String paymentMethod, double totalAmount, 
-                                          List<OrderItem> orderItems) throws Exception {
-        
-        // Header
-        writer.write("===============================================\n");
-        writer.write(centerText(PHARMACY_NAME, 47) + "\n");
-        writer.write("===============================================\n");
-        writer.write(centerText(PHARMACY_ADDRESS_LINE1, 47) + "\n");
-        writer.write(centerText(PHARMACY_ADDRESS_LINE2, 47) + "\n");
-        writer.write(centerText(PHARMACY_PHONE, 47) + "\n");
-        writer.write("===============================================\n");
-        writer.write(centerText("SALES INVOICE", 47) + "\n");
-        writer.write("===============================================\n\n");
-      
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm:ss");
-        
-        writer.write("Order ID: " + orderId + "\n");
-        writer.write("Payment Method: " + paymentMethod + "\n");
-        writer.write("Date & Time: " + now.format(formatter) + "\n\n");
-        
-        // Items section
-        writer.write("===============================================\n");
-        writer.write(centerText("ITEMS", 47) + "\n");
-        writer.write("===============================================\n");
-        writer.write(String.format("%-20s %5s %9s %10s\n", "Item", "Qty", "Price", "Total"));
-        writer.write("-----------------------------------------------\n");
-        
-        double subtotal = 0;
-        for (OrderItem item : orderItems) {
-            writer.write(String.format("%-20s %5d %9.2f %10.2f\n", 
-                truncateString(item.getProductName(), 20),
-                item.getQuantity(),
-                item.getUnitPrice(),
-                item.getTotalPrice()));
-            subtotal += item.getTotalPrice();
-        }
-        
-        writer.write("-----------------------------------------------\n");
-        writer.write(String.format("%35s %10.2f\n", "Subtotal: ₱", subtotal));
-        
-        double tax = 0;
-        if (tax > 0) {
-            writer.write(String.format("%35s %10.2f\n", "Tax: ₱", tax));
-        }
-        
-        writer.write("===============================================\n");
-        writer.write(String.format("%35s %10.2f\n", "TOTAL: ₱", totalAmount));
-        writer.write("===============================================\n\n");
-    
-        writer.write(centerText("Thank you for your purchase!", 47) + "\n");
-        writer.write(centerText("Please visit us again!", 47) + "\n\n");
-        writer.write("===============================================\n");
-    }
-    
-    private static String centerText(String text, int width) {
-        int padding = (width - text.length()) / 2;
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < padding; i++) {
-            sb.append(" ");
+    /*
+     * Writes one receipt as UTF-8, replacing the file. Blocking; call off the FX thread.
+     * @return Bytes written
+     */
+    public static int writeReceipt(Path file, String orderId, String paymentMethod, LocalDateTime orderDate,
+                                   double totalAmount, List<OrderItem> orderItems) throws IOException {
+        rendererLock.lock();
+        try {
+            return renderer.write(file, orderId, paymentMethod, orderDate, totalAmount, orderItems);
+        } finally {
+            rendererLock.unlock();
         }
-        sb.append(text);
-        return sb.toString();
     }
     
-    private static String truncateString(String str, int maxLength) {
-        if (str.length() <= maxLength) {
-            return str;
+    /*
+     * Writes a receipt for each order into directory as Receipt_<order id>.txt, e.g. an
+     * end-of-day reprint. The orders' items must be loaded. Blocking; call off the FX thread.
+     * @return Number of receipts written
+     */
+    public static int writeReceipts(Path directory, List<Order> orders) throws IOException {
+        rendererLock.lock();
+        try {
+            for (Order order : orders) {
+                LocalDateTime orderDate = order.getOrderDate() != null ? order.getOrderDate() : LocalDateTime.now();
+                renderer.write(directory.resolve("Receipt_" + order.getId() + ".txt"), order.getId(),
+                    order.getPaymentMethod(), orderDate, order.getTotalAmount(), order.getOrderItems());
+            }
+            return orders.size();
+        } finally {
+            rendererLock.unlock();
         }
-        return str.substring(0, maxLength - 3) + "...";
     }
     
     private static void showAlert(Alert.AlertType alertType, String title, String message) {
@@ -0,0 +1,269 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ * Lays out the plain-text receipt and writes it as UTF-8.
+ *
+ * Everything that is the same on every receipt (store header, rules, column headings,
+ * footer) is laid out once, when the class loads. Per receipt, only the order's own
+ * fields are appended into one reused StringBuilder, with fixed-width columns padded and
+ * numbers formatted by hand instead of String.format, so a line allocates nothing. The
+ * text is encoded into a reused direct buffer and written with a single FileChannel
+ * write, so a batch of reprints costs one open and one write per file.
+ *
+ * Not thread-safe: each instance owns its buffers. ReceiptGenerator shares one behind a lock.
+ */
+public class ReceiptRenderer {
+
+    private static final String PHARMACY_NAME = "HEALTH POINT";
+    private static final String PHARMACY_ADDRESS_LINE1 = "Brgy. 123";
+    private static final String PHARMACY_ADDRESS_LINE2 = "Ormoc City 6541, Leyte";
+    private static final String PHARMACY_PHONE = "Phone: 0012-345-6789";
+
+    private static final int WIDTH = 47;
+    // Item table columns, separated by one space: name left-aligned, the rest right-aligned
+    private static final int NAME_WIDTH = 20;
+    private static final int QUANTITY_WIDTH = 5;
+    private static final int PRICE_WIDTH = 9;
+    private static final int AMOUNT_WIDTH = 10;
+    // Summary lines: label right-aligned over the item columns, then the amount column
+    private static final int LABEL_WIDTH = 35;
+
+    private static final String RULE = "=".repeat(WIDTH) + "\n";
+    private static final String THIN_RULE = "-".repeat(WIDTH) + "\n";
+    private static final String HEADER =
+        RULE +
+        center(PHARMACY_NAME) +
+        RULE +
+        center(PHARMACY_ADDRESS_LINE1) +
+        center(PHARMACY_ADDRESS_LINE2) +
+        center(PHARMACY_PHONE) +
+        RULE +
+        center("SALES INVOICE") +
+        RULE + "\n";
+    private static final String ITEMS_HEADER =
+        RULE +
+        center("ITEMS") +
+        RULE +
+        pad("Item", NAME_WIDTH, false) + " " + pad("Qty", QUANTITY_WIDTH, true) + " " +
+        pad("Price", PRICE_WIDTH, true) + " " + pad("Total", AMOUNT_WIDTH, true) + "\n" +
+        THIN_RULE;
+    private static final String SUBTOTAL_LABEL = pad("Subtotal: ₱", LABEL_WIDTH, true) + " ";
+    private static final String TAX_LABEL = pad("Tax: ₱", LABEL_WIDTH, true) + " ";
+    private static final String TOTAL_LABEL = pad("TOTAL: ₱", LABEL_WIDTH, true) + " ";
+    private static final String FOOTER =
+        RULE + "\n" +
+        center("Thank you for your purchase!") +
+        center("Please visit us again!") + "\n" +
+        RULE;
+    private static final String[] MONTHS = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    private final StringBuilder text = new StringBuilder(4096);
+    // Digits of the number being formatted, filled from the right
+    private final char[] digits = new char[24];
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private char[] chars = new char[4096];
+    private CharBuffer charView = CharBuffer.wrap(chars);
+    private ByteBuffer bytes = ByteBuffer.allocateDirect(8192);
+
+    /*
+     * Lays out one receipt. The result is this renderer's buffer, valid until the next call.
+     * @param orderDate Shown as the receipt's date and time
+     */
+    public CharSequence render(String orderId, String paymentMethod, LocalDateTime orderDate,
+                               double totalAmount, List<OrderItem> orderItems) {
+        text.setLength(0);
+        text.append(HEADER);
+        text.append("Order ID: ").append(orderId).append('\n');
+        text.append("Payment Method: ").append(paymentMethod).append('\n');
+        text.append("Date & Time: ");
+        appendDateTime(orderDate);
+        text.append("\n\n");
+
+        text.append(ITEMS_HEADER);
+        double subtotal = 0;
+        for (OrderItem item : orderItems) {
+            appendName(item.getProductName());
+            text.append(' ');
+            appendInt(item.getQuantity(), QUANTITY_WIDTH);
+            text.append(' ');
+            appendAmount(item.getUnitPrice(), PRICE_WIDTH);
+            text.append(' ');
+            appendAmount(item.getTotalPrice(), AMOUNT_WIDTH);
+            text.append('\n');
+            subtotal += item.getTotalPrice();
+        }
+        text.append(THIN_RULE);
+        text.append(SUBTOTAL_LABEL);
+        appendAmount(subtotal, AMOUNT_WIDTH);
+        text.append('\n');
+
+        double tax = 0;
+        if (tax > 0) {
+            text.append(TAX_LABEL);
+            appendAmount(tax, AMOUNT_WIDTH);
+            text.append('\n');
+        }
+
+        text.append(RULE);
+        text.append(TOTAL_LABEL);
+        appendAmount(totalAmount, AMOUNT_WIDTH);
+        text.append('\n');
+        text.append(FOOTER);
+        return text;
+    }
+
+    /*
+     * Lays out one receipt and writes it to file, replacing what was there.
+     * @return Bytes written
+     */
+    public int write(Path file, String orderId, String paymentMethod, LocalDateTime orderDate,
+                     double totalAmount, List<OrderItem> orderItems) throws IOException {
+        render(orderId, paymentMethod, orderDate, totalAmount, orderItems);
+        ByteBuffer encoded = encode();
+        int size = encoded.remaining();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // One call in practice; the loop only covers a channel that writes partially
+            while (encoded.hasRemaining()) {
+                channel.write(encoded);
+            }
+        }
+        return size;
+    }
+
+    // Encodes the laid-out text into the reused byte buffer, growing the buffers if a receipt outgrows them
+    private ByteBuffer encode() {
+        int length = text.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+            charView = CharBuffer.wrap(chars);
+        }
+        text.getChars(0, length, chars, 0);
+        int maxBytes = (int) Math.ceil(length * (double) encoder.maxBytesPerChar());
+        if (bytes.capacity() < maxBytes) {
+            bytes = ByteBuffer.allocateDirect(Math.max(maxBytes, bytes.capacity() * 2));
+        }
+
+        charView.clear().limit(length);
+        bytes.clear();
+        encoder.reset();
+        CoderResult result = encoder.encode(charView, bytes, true);
+        if (!result.isUnderflow()) {
+            // Unpaired surrogates in a product name; there is no sensible receipt to print
+            throw new IllegalStateException("Could not encode receipt: " + result);
+        }
+        encoder.flush(bytes);
+        bytes.flip();
+        return bytes;
+    }
+
+    // Names longer than the column are cut to end in "..."
+    private void appendName(String name) {
+        if (name.length() <= NAME_WIDTH) {
+            text.append(name);
+            appendSpaces(NAME_WIDTH - name.length());
+        } else {
+            text.append(name, 0, NAME_WIDTH - 3).append("...");
+        }
+    }
+
+    // Right-aligned in width; wider numbers push the line out, as %d does
+    private void appendInt(long value, int width) {
+        int start = formatDigits(Math.abs(value), 0, value < 0);
+        appendSpaces(width - (digits.length - start));
+        text.append(digits, start, digits.length - start);
+    }
+
+    // Two decimals, right-aligned in width
+    private void appendAmount(double value, int width) {
+        long cents = toCents(Math.abs(value));
+        int start = formatDigits(cents, 2, value < 0 && cents != 0);
+        appendSpaces(width - (digits.length - start));
+        text.append(digits, start, digits.length - start);
+    }
+
+    /*
+     * Rounds as %.2f does: half up on the shortest decimal that reads back as the double,
+     * so 218.095 (stored as 218.09499...) prints 218.10, where comparing the stored value
+     * would give 218.09. The two only disagree when that decimal is exactly half a cent,
+     * and then the half cent itself reads back as the same double. fma() works on the
+     * unrounded product, so the comparisons are exact.
+     */
+    private static long toCents(double value) {
+        long cents = (long) Math.floor(value * 100);
+        if (Math.fma(value, 100, -cents) < 0) {
+            cents--;
+        } else if (Math.fma(value, 100, -(cents + 1)) >= 0) {
+            cents++;
+        }
+        if (value == (2 * cents + 1) / 200.0 || Math.fma(value, 100, -(cents + 0.5)) >= 0) {
+            cents++;
+        }
+        return cents;
+    }
+
+    // Writes value into the end of digits with a decimal point before the last decimals; returns the first index
+    private int formatDigits(long value, int decimals, boolean negative) {
+        int position = digits.length;
+        int written = 0;
+        do {
+            if (decimals > 0 && written == decimals) {
+                digits[--position] = '.';
+            }
+            digits[--position] = (char) ('0' + value % 10);
+            value /= 10;
+            written++;
+        } while (value > 0 || written <= decimals);
+        if (negative) {
+            digits[--position] = '-';
+        }
+        return position;
+    }
+
+    // "MMM dd, yyyy HH:mm:ss", with English month names whatever the default locale
+    private void appendDateTime(LocalDateTime dateTime) {
+        text.append(MONTHS[dateTime.getMonthValue() - 1]).append(' ');
+        appendTwoDigits(dateTime.getDayOfMonth());
+        text.append(", ").append(dateTime.getYear()).append(' ');
+        appendTwoDigits(dateTime.getHour());
+        text.append(':');
+        appendTwoDigits(dateTime.getMinute());
+        text.append(':');
+        appendTwoDigits(dateTime.getSecond());
+    }
+
+    private void appendTwoDigits(int value) {
+        text.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private void appendSpaces(int count) {
+        for (int i = 0; i < count; i++) {
+            text.append(' ');
+        }
+    }
+
+    // Template building, run once per constant
+
+    private static String center(String line) {
+        return " ".repeat(Math.max(0, (WIDTH - line.length()) / 2)) + line + "\n";
+    }
+
+    private static String pad(String value, int width, boolean right) {
+        String padding = " ".repeat(Math.max(0, width - value.length()));
+        return right ? padding + value : value + padding;
+    }
+}
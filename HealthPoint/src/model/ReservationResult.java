@@ -0,0 +1,59 @@
+package model;
+
+/*
+ * Outcome of asking StockReservationService to hold stock for a cart.
+ */
+public class ReservationResult {
+
+    private final boolean reserved;
+    private final int productId;
+    private final int requestedQuantity;
+    private final int availableQuantity;
+
+    private ReservationResult(boolean reserved, int productId, int requestedQuantity, int availableQuantity) {
+        this.reserved = reserved;
+        this.productId = productId;
+        this.requestedQuantity = requestedQuantity;
+        this.availableQuantity = availableQuantity;
+    }
+
+    static ReservationResult reserved(int productId, int requestedQuantity, int availableQuantity) {
+        return new ReservationResult(true, productId, requestedQuantity, availableQuantity);
+    }
+
+    static ReservationResult conflict(int productId, int requestedQuantity, int availableQuantity) {
+        return new ReservationResult(false, productId, requestedQuantity, availableQuantity);
+    }
+
+    public boolean isReserved() {
+        return reserved;
+    }
+
+    public boolean isConflict() {
+        return !reserved;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    // Total quantity the cart asked to hold for this product
+    public int getRequestedQuantity() {
+        return requestedQuantity;
+    }
+
+    // Units this cart could hold right now: stock minus what other carts are holding
+    public int getAvailableQuantity() {
+        return availableQuantity;
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationResult{" +
+                "reserved=" + reserved +
+                ", productId=" + productId +
+                ", requested=" + requestedQuantity +
+                ", available=" + availableQuantity +
+                '}';
+    }
+}
@@ -0,0 +1,390 @@
+package model;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Sales figures for the dashboard, read from pre-aggregated rollup tables instead of
+ * orders and order_items.
+ *
+ * Each order adds itself to the rollups (per day; per day and payment method, category
+ * and product; per month and product) in the transaction that saves it, so the rollups
+ * are never behind. A report then reads at most one row per day and key, whatever the
+ * number of orders: a year of history is a few hundred rows, and a product ranking over
+ * several years uses the monthly rows for every whole month in the range.
+ *
+ * Dates are order dates (yyyy-MM-dd, as orders.order_date stores them); ranges are
+ * inclusive at both ends.
+ */
+public class SalesAnalytics {
+
+    /* Category of sales whose product has since been deleted. */
+    public static final String UNKNOWN_CATEGORY = "Uncategorized";
+    /* Longest range whose trend is shown per day; longer ones are shown per month. */
+    public static final int DAILY_TREND_MAX_DAYS = 62;
+
+    private static final String UPSERT_DAILY_SQL =
+        "INSERT INTO sales_daily (sale_date, order_count, items_sold, revenue) VALUES (?, 1, ?, ?) " +
+        "ON CONFLICT (sale_date) DO UPDATE SET order_count = order_count + 1," +
+        " items_sold = items_sold + excluded.items_sold, revenue = revenue + excluded.revenue";
+    private static final String UPSERT_PAYMENT_SQL =
+        "INSERT INTO sales_daily_payment (sale_date, payment_method, order_count, revenue) VALUES (?, ?, 1, ?) " +
+        "ON CONFLICT (sale_date, payment_method) DO UPDATE SET order_count = order_count + 1," +
+        " revenue = revenue + excluded.revenue";
+    private static final String UPSERT_CATEGORY_SQL =
+        "INSERT INTO sales_daily_category (sale_date, category, items_sold, revenue) " +
+        "VALUES (?1, COALESCE((SELECT category FROM meds_product WHERE product_id = ?2), '" + UNKNOWN_CATEGORY + "'), ?3, ?4) " +
+        "ON CONFLICT (sale_date, category) DO UPDATE SET" +
+        " items_sold = items_sold + excluded.items_sold, revenue = revenue + excluded.revenue";
+    private static final String UPSERT_PRODUCT_SQL =
+        "INSERT INTO sales_daily_product (sale_date, product_id, product_name, items_sold, revenue) VALUES (?, ?, ?, ?, ?) " +
+        "ON CONFLICT (sale_date, product_id) DO UPDATE SET product_name = excluded.product_name," +
+        " items_sold = items_sold + excluded.items_sold, revenue = revenue + excluded.revenue";
+    private static final String UPSERT_MONTHLY_PRODUCT_SQL =
+        "INSERT INTO sales_monthly_product (sale_month, product_id, product_name, items_sold, revenue) VALUES (?, ?, ?, ?, ?) " +
+        "ON CONFLICT (sale_month, product_id) DO UPDATE SET product_name = excluded.product_name," +
+        " items_sold = items_sold + excluded.items_sold, revenue = revenue + excluded.revenue";
+
+    private static final String TOTALS_SQL =
+        "SELECT COALESCE(SUM(order_count), 0), COALESCE(SUM(items_sold), 0), COALESCE(SUM(revenue), 0) " +
+        "FROM sales_daily WHERE sale_date BETWEEN ? AND ?";
+    private static final String DAILY_SQL =
+        "SELECT sale_date, order_count, items_sold, revenue FROM sales_daily " +
+        "WHERE sale_date BETWEEN ? AND ? ORDER BY sale_date";
+    private static final String MONTHLY_SQL =
+        "SELECT substr(sale_date, 1, 7), SUM(order_count), SUM(items_sold), SUM(revenue) FROM sales_daily " +
+        "WHERE sale_date BETWEEN ? AND ? GROUP BY 1 ORDER BY 1";
+    private static final String CATEGORIES_SQL =
+        "SELECT category, SUM(items_sold), SUM(revenue) FROM sales_daily_category " +
+        "WHERE sale_date BETWEEN ? AND ? GROUP BY category ORDER BY 3 DESC, 1";
+    private static final String PAYMENT_METHODS_SQL =
+        "SELECT payment_method, SUM(order_count), SUM(revenue) FROM sales_daily_payment " +
+        "WHERE sale_date BETWEEN ? AND ? GROUP BY payment_method ORDER BY 3 DESC, 1";
+    // Days before the first whole month, the whole months, then the days after the last one
+    private static final String TOP_PRODUCTS_SQL =
+        "SELECT product_id, MAX(product_name), SUM(items_sold), SUM(revenue) FROM (" +
+        "    SELECT product_id, product_name, items_sold, revenue FROM sales_daily_product" +
+        "        WHERE sale_date >= ?1 AND sale_date < ?2" +
+        "    UNION ALL" +
+        "    SELECT product_id, product_name, items_sold, revenue FROM sales_monthly_product" +
+        "        WHERE sale_month >= ?3 AND sale_month < ?4" +
+        "    UNION ALL" +
+        "    SELECT product_id, product_name, items_sold, revenue FROM sales_daily_product" +
+        "        WHERE sale_date >= ?5 AND sale_date <= ?6" +
+        ") GROUP BY product_id ORDER BY 4 DESC, 1 LIMIT ?7";
+    private static final String FIRST_SALE_SQL = "SELECT MIN(sale_date) FROM sales_daily";
+
+    /*
+     * Adds an order to the rollups. Called by OrderBatchWriter inside the order's transaction.
+     * @param lease The writer lease holding the transaction
+     */
+    static void record(ConnectionLease lease, Order order) throws SQLException {
+        String saleDate = order.getOrderDate().toLocalDate().toString();
+        String saleMonth = YearMonth.from(order.getOrderDate()).toString();
+        int itemsSold = 0;
+
+        PreparedStatement categoryStmt = lease.prepare(UPSERT_CATEGORY_SQL);
+        PreparedStatement productStmt = lease.prepare(UPSERT_PRODUCT_SQL);
+        PreparedStatement monthlyStmt = lease.prepare(UPSERT_MONTHLY_PRODUCT_SQL);
+        for (OrderItem item : order.getOrderItems()) {
+            itemsSold += item.getQuantity();
+
+            categoryStmt.setString(1, saleDate);
+            categoryStmt.setInt(2, item.getProductId());
+            categoryStmt.setInt(3, item.getQuantity());
+            categoryStmt.setDouble(4, item.getTotalPrice());
+            categoryStmt.addBatch();
+
+            productStmt.setString(1, saleDate);
+            productStmt.setInt(2, item.getProductId());
+            productStmt.setString(3, item.getProductName());
+            productStmt.setInt(4, item.getQuantity());
+            productStmt.setDouble(5, item.getTotalPrice());
+            productStmt.addBatch();
+
+            monthlyStmt.setString(1, saleMonth);
+            monthlyStmt.setInt(2, item.getProductId());
+            monthlyStmt.setString(3, item.getProductName());
+            monthlyStmt.setInt(4, item.getQuantity());
+            monthlyStmt.setDouble(5, item.getTotalPrice());
+            monthlyStmt.addBatch();
+        }
+        categoryStmt.executeBatch();
+        productStmt.executeBatch();
+        monthlyStmt.executeBatch();
+
+        PreparedStatement dailyStmt = lease.prepare(UPSERT_DAILY_SQL);
+        dailyStmt.setString(1, saleDate);
+        dailyStmt.setInt(2, itemsSold);
+        dailyStmt.setDouble(3, order.getTotalAmount());
+        dailyStmt.executeUpdate();
+
+        PreparedStatement paymentStmt = lease.prepare(UPSERT_PAYMENT_SQL);
+        paymentStmt.setString(1, saleDate);
+        paymentStmt.setString(2, order.getPaymentMethod());
+        paymentStmt.setDouble(3, order.getTotalAmount());
+        paymentStmt.executeUpdate();
+    }
+
+    /*
+     * Everything the dashboard shows for a range, read on one connection.
+     * @param from First day, inclusive
+     * @param to Last day, inclusive
+     * @param topProducts How many products to rank
+     */
+    public static Report getReport(LocalDate from, LocalDate to, int topProducts) throws SQLException {
+        long started = System.nanoTime();
+        try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+            Totals totals = queryTotals(lease, from, to);
+            List<Period> trend = queryTrend(lease, from, to);
+            List<Breakdown> products = queryTopProducts(lease, from, to, topProducts);
+            List<Breakdown> categories = queryBreakdown(lease, CATEGORIES_SQL, from, to);
+            List<Breakdown> paymentMethods = queryBreakdown(lease, PAYMENT_METHODS_SQL, from, to);
+            long elapsedNanos = System.nanoTime() - started;
+            LatencyStats.get("analytics.report").record(elapsedNanos);
+            return new Report(from, to, totals, trend, products, categories, paymentMethods, elapsedNanos / 1_000_000);
+        }
+    }
+
+    /* The day of the first recorded sale, or null if nothing has been sold yet. */
+    public static LocalDate getFirstSaleDate() throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseReader();
+             ResultSet resultSet = lease.prepare(FIRST_SALE_SQL).executeQuery()) {
+            String firstSale = resultSet.next() ? resultSet.getString(1) : null;
+            return firstSale != null ? LocalDate.parse(firstSale) : null;
+        }
+    }
+
+    private static Totals queryTotals(ConnectionLease lease, LocalDate from, LocalDate to) throws SQLException {
+        PreparedStatement statement = lease.prepare(TOTALS_SQL);
+        statement.setString(1, from.toString());
+        statement.setString(2, to.toString());
+        try (ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return new Totals(resultSet.getInt(1), resultSet.getInt(2), resultSet.getDouble(3));
+        }
+    }
+
+    private static List<Period> queryTrend(ConnectionLease lease, LocalDate from, LocalDate to) throws SQLException {
+        boolean daily = !to.isAfter(from.plusDays(DAILY_TREND_MAX_DAYS - 1));
+        PreparedStatement statement = lease.prepare(daily ? DAILY_SQL : MONTHLY_SQL);
+        statement.setString(1, from.toString());
+        statement.setString(2, to.toString());
+        Map<String, Period> recorded = new HashMap<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                Period period = new Period(resultSet.getString(1), resultSet.getInt(2), resultSet.getInt(3), resultSet.getDouble(4));
+                recorded.put(period.getLabel(), period);
+            }
+        }
+
+        // Days or months without sales are stored as no row; a chart still needs them
+        List<Period> trend = new ArrayList<>();
+        if (daily) {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                trend.add(recorded.getOrDefault(day.toString(), new Period(day.toString(), 0, 0, 0)));
+            }
+        } else {
+            YearMonth last = YearMonth.from(to);
+            for (YearMonth month = YearMonth.from(from); !month.isAfter(last); month = month.plusMonths(1)) {
+                trend.add(recorded.getOrDefault(month.toString(), new Period(month.toString(), 0, 0, 0)));
+            }
+        }
+        return trend;
+    }
+
+    private static List<Breakdown> queryTopProducts(ConnectionLease lease, LocalDate from, LocalDate to, int limit) throws SQLException {
+        // Whole months in the range are [firstMonth, endMonth)
+        LocalDate firstMonth = from.getDayOfMonth() == 1 ? from : from.withDayOfMonth(1).plusMonths(1);
+        LocalDate endMonth = to.plusDays(1).withDayOfMonth(1);
+
+        PreparedStatement statement = lease.prepare(TOP_PRODUCTS_SQL);
+        if (firstMonth.isBefore(endMonth)) {
+            statement.setString(1, from.toString());
+            statement.setString(2, firstMonth.toString());
+            statement.setString(3, YearMonth.from(firstMonth).toString());
+            statement.setString(4, YearMonth.from(endMonth).toString());
+            statement.setString(5, endMonth.toString());
+            statement.setString(6, to.toString());
+        } else {
+            // No whole month: every day from the daily rows, nothing from the others
+            statement.setString(1, from.toString());
+            statement.setString(2, to.plusDays(1).toString());
+            statement.setString(3, "");
+            statement.setString(4, "");
+            statement.setString(5, to.plusDays(1).toString());
+            statement.setString(6, to.toString());
+        }
+        statement.setInt(7, limit);
+
+        List<Breakdown> products = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                products.add(new Breakdown(resultSet.getString(2), resultSet.getInt(3), resultSet.getDouble(4)));
+            }
+        }
+        return products;
+    }
+
+    private static List<Breakdown> queryBreakdown(ConnectionLease lease, String sql, LocalDate from, LocalDate to) throws SQLException {
+        PreparedStatement statement = lease.prepare(sql);
+        statement.setString(1, from.toString());
+        statement.setString(2, to.toString());
+        List<Breakdown> breakdown = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                breakdown.add(new Breakdown(resultSet.getString(1), resultSet.getInt(2), resultSet.getDouble(3)));
+            }
+        }
+        return breakdown;
+    }
+
+    /* Orders, items sold and revenue over a range. */
+    public static class Totals {
+        private final int orderCount;
+        private final int itemsSold;
+        private final double revenue;
+
+        Totals(int orderCount, int itemsSold, double revenue) {
+            this.orderCount = orderCount;
+            this.itemsSold = itemsSold;
+            this.revenue = revenue;
+        }
+
+        public int getOrderCount() {
+            return orderCount;
+        }
+
+        public int getItemsSold() {
+            return itemsSold;
+        }
+
+        public double getRevenue() {
+            return revenue;
+        }
+
+        public double getAverageOrderValue() {
+            return orderCount == 0 ? 0 : revenue / orderCount;
+        }
+    }
+
+    /* One day (yyyy-MM-dd) or month (yyyy-MM) of a trend. */
+    public static class Period {
+        private final String label;
+        private final int orderCount;
+        private final int itemsSold;
+        private final double revenue;
+
+        Period(String label, int orderCount, int itemsSold, double revenue) {
+            this.label = label;
+            this.orderCount = orderCount;
+            this.itemsSold = itemsSold;
+            this.revenue = revenue;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getOrderCount() {
+            return orderCount;
+        }
+
+        public int getItemsSold() {
+            return itemsSold;
+        }
+
+        public double getRevenue() {
+            return revenue;
+        }
+    }
+
+    /* Revenue for one product, category or payment method; what count means depends on the query. */
+    public static class Breakdown {
+        private final String name;
+        private final int count;
+        private final double revenue;
+
+        Breakdown(String name, int count, double revenue) {
+            this.name = name;
+            this.count = count;
+            this.revenue = revenue;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getRevenue() {
+            return revenue;
+        }
+    }
+
+    /* A dashboard's worth of figures for one range. */
+    public static class Report {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final Totals totals;
+        private final List<Period> trend;
+        private final List<Breakdown> topProducts;
+        private final List<Breakdown> categories;
+        private final List<Breakdown> paymentMethods;
+        private final long elapsedMillis;
+
+        Report(LocalDate from, LocalDate to, Totals totals, List<Period> trend, List<Breakdown> topProducts,
+               List<Breakdown> categories, List<Breakdown> paymentMethods, long elapsedMillis) {
+            this.from = from;
+            this.to = to;
+            this.totals = totals;
+            this.trend = trend;
+            this.topProducts = topProducts;
+            this.categories = categories;
+            this.paymentMethods = paymentMethods;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public LocalDate getFrom() {
+            return from;
+        }
+
+        public LocalDate getTo() {
+            return to;
+        }
+
+        public Totals getTotals() {
+            return totals;
+        }
+
+        public List<Period> getTrend() {
+            return trend;
+        }
+
+        public List<Breakdown> getTopProducts() {
+            return topProducts;
+        }
+
+        public List<Breakdown> getCategories() {
+            return categories;
+        }
+
+        public List<Breakdown> getPaymentMethods() {
+            return paymentMethods;
+        }
+
+        /* How long the queries took. */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
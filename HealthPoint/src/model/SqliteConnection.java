@@ -1,36 +1,88 @@
 package model;
 
-import java.sql.Connection;
-
-
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
+/*
+ * Entry point for database access. Owns the application-wide ConnectionPool.
+ *
+ * Borrow a connection with leaseWriter() for inserts/updates/deletes or leaseReader()
+ * for queries, always inside try-with-resources:
+ *
+ *     try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+ *         Connection connection = lease.getConnection();
+ *         ...
+ *     }
+ */
 public class SqliteConnection {
     private static final String DATABASE_URL = "jdbc:sqlite:Healthpoint.db";
-    private static Connection connection;
-    
-    public static Connection Connector() {
-        try {
-            Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection(DATABASE_URL);
-            System.out.println("Database connection successful!");
-            return connection;
-        } catch (Exception e) {
+    private static final int READER_CONNECTIONS = 3;
+    private static final long LEASE_TIMEOUT_MILLIS = 10_000;
+
+    private static final StorageProfile storageProfile = StorageProfile.fromSystemProperty();
+    private static ConnectionPool pool;
+    private static CheckpointScheduler checkpointScheduler;
+
+    // Once, however many times the pool is reopened
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SqliteConnection::closeConnection));
+    }
+
+    /* Returns the shared pool, creating it on first use. */
+    public static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null || pool.isClosed()) {
+            try {
+                Class.forName("org.sqlite.JDBC");
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("SQLite JDBC driver not found", e);
+            }
+            pool = new ConnectionPool(DATABASE_URL, storageProfile, READER_CONNECTIONS, LEASE_TIMEOUT_MILLIS);
+
+            // Open the writer first: it switches the file to WAL before any reader attaches,
+            // brings the schema up to date, and a missing/locked database fails fast here
+            try (ConnectionLease lease = pool.leaseWriter()) {
+                DatabaseSchema.ensureSchema(lease.getConnection());
+                System.out.println("Database connection successful! (storage profile: " + storageProfile + ")");
+            }
+
+            checkpointScheduler = new CheckpointScheduler(pool, storageProfile.getCheckpointIntervalSeconds());
+            checkpointScheduler.start();
+
+            // Thumbnails for products saved before ThumbnailStore existed
+            ThumbnailStore.backfillAsync();
+        }
+        return pool;
+    }
+
+    public static ConnectionLease leaseWriter() throws SQLException {
+        return getPool().leaseWriter();
+    }
+
+    public static ConnectionLease leaseReader() throws SQLException {
+        return getPool().leaseReader();
+    }
+
+    /* Returns true when the pool is up and a connection can be leased. */
+    public static boolean isConnected() {
+        try (ConnectionLease lease = leaseReader()) {
+            return !lease.getConnection().isClosed();
+        } catch (SQLException e) {
             System.err.println("Error connecting to database: " + e.getMessage());
-            e.printStackTrace();
-            return null;
+            return false;
         }
     }
-    
-    public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Database connection closed.");
+
+    public static synchronized void closeConnection() {
+        if (pool != null && !pool.isClosed()) {
+            if (checkpointScheduler != null) {
+                checkpointScheduler.stop();
+                checkpointScheduler = null;
             }
-        } catch (SQLException e) {
-            System.err.println("Error closing database connection: " + e.getMessage());
+            System.out.println("Connection pool stats: " + pool.getMetrics());
+            IoExecutor.getTimings().forEach((name, timing) -> System.out.println("I/O " + name + ": " + timing));
+            System.out.println("Image cache: " + ImageCache.getStats());
+            LatencyStats.getAll().forEach((name, latency) -> System.out.println("Latency " + name + ": " + latency));
+            pool.close();
+            System.out.println("Database connection closed.");
         }
     }
-}
\ No newline at end of file
+}
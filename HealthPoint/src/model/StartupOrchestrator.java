@@ -0,0 +1,172 @@
+package model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import controller.ViewManager;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import org.kordamp.ikonli.javafx.FontIcon;
+
+/*
+ * Warms up everything the first screens after login need while the login form is open.
+ *
+ * Phases run concurrently on IoExecutor: opening the database (driver, WAL, schema),
+ * the product catalog snapshot (after the database), the Ikonli icon font, the fonts
+ * the pages use, and bundled images. The Inventory and Order pages are built on the FX
+ * thread via ViewManager once the login page is up. Each phase's duration is recorded,
+ * and a one-line summary is printed when the last one finishes, so a slow phase shows
+ * up in the log.
+ *
+ * A failed phase is only logged; whatever it was warming is loaded on first use instead.
+ */
+public class StartupOrchestrator {
+
+    // Fonts named in the FXML and in inline styles
+    private static final String[] FONT_FAMILIES = { "System", "System Bold", "SansSerif Regular", "Segoe UI", "Arial" };
+    // Bundled images and the sizes the pages decode them at (see ImageCache)
+    private static final String[] ACTION_ICONS = { "/view/images/update_status.png", "/view/images/delete.png" };
+    private static final int ACTION_ICON_SIZE = 30;
+    private static final int[] PLACEHOLDER_SIZES = { 40, 100, 170, 180 };
+
+    private static final long startedNanos = System.nanoTime();
+    private static final Map<String, Long> timings = new LinkedHashMap<>();
+    private static final List<CompletableFuture<?>> phases = new ArrayList<>();
+    private static final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private static CompletableFuture<Void> database;
+    private static boolean started = false;
+
+    /*
+     * Starts the background phases. Call first thing in Application.start(), before the
+     * login page is loaded; later calls do nothing.
+     */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        database = phase("database", null, () -> SqliteConnection.getPool());
+        phase("catalog", database, () -> ProductCatalogCache.getInstance().refresh());
+        phase("icons", null, () -> new FontIcon("bi-person-circle"));
+        phase("fonts", null, StartupOrchestrator::loadFonts);
+        phase("images", null, StartupOrchestrator::loadImages);
+        // Resolves the till's node id now, so a missing -Dhealthpoint.node.id is reported at startup
+        phase("order ids", null, OrderIdGenerator::getNodeId);
+    }
+
+    /*
+     * Records that the login page is on screen and queues the post-login pages behind it
+     * on the FX thread. Call once, after the stage is shown.
+     */
+    public static void loginShown() {
+        record("login shown", System.nanoTime() - startedNanos);
+        long viewsStarted = System.nanoTime();
+        CompletableFuture<Void> views = ViewManager.preload(ViewManager.Screen.INVENTORY, ViewManager.Screen.ORDER)
+            .whenComplete((ignored, error) -> record("views", System.nanoTime() - viewsStarted));
+        synchronized (StartupOrchestrator.class) {
+            phases.add(views);
+            CompletableFuture.allOf(phases.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, error) -> {
+                    printSummary();
+                    ready.complete(null);
+                });
+        }
+    }
+
+    /* Completes once the database is open (exceptionally if it could not be opened). */
+    public static synchronized CompletableFuture<Void> databaseReady() {
+        start();
+        return database;
+    }
+
+    /* Completes once every phase, including the views, has finished or failed. */
+    public static CompletableFuture<Void> whenReady() {
+        return ready;
+    }
+
+    /* Milliseconds since the process was launched, or -1 if the OS does not say. */
+    public static long millisSinceLaunch() {
+        return ProcessHandle.current().info().startInstant()
+            .map(processStart -> Duration.between(processStart, Instant.now()).toMillis())
+            .orElse(-1L);
+    }
+
+    /* Duration of each phase in milliseconds, in the order they finished. */
+    public static Map<String, Long> getTimings() {
+        synchronized (timings) {
+            return new LinkedHashMap<>(timings);
+        }
+    }
+
+    private static CompletableFuture<Void> phase(String name, CompletableFuture<Void> after, Callable<?> work) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Runnable run = () -> IoExecutor.execute("startup." + name, () -> {
+            long phaseStarted = System.nanoTime();
+            try {
+                work.call();
+                record(name, System.nanoTime() - phaseStarted);
+                done.complete(null);
+            } catch (Exception e) {
+                System.err.println("Startup phase " + name + " failed: " + e.getMessage());
+                done.completeExceptionally(e);
+            }
+        });
+        if (after == null) {
+            run.run();
+        } else {
+            // Runs even if the earlier phase failed; the work then fails or retries on its own
+            after.whenComplete((ignored, error) -> run.run());
+        }
+        phases.add(done);
+        return done;
+    }
+
+    private static Object loadFonts() {
+        // Enumerating the installed families is the slow part; lookups by name reuse the list
+        Font.getFamilies();
+        for (String family : FONT_FAMILIES) {
+            Font.font(family, FontWeight.NORMAL, 12);
+            Font.font(family, FontWeight.BOLD, 12);
+        }
+        return null;
+    }
+
+    private static Object loadImages() {
+        for (String icon : ACTION_ICONS) {
+            ImageCache.getResource(icon, ACTION_ICON_SIZE);
+        }
+        for (int size : PLACEHOLDER_SIZES) {
+            ImageCache.getPlaceholder(size);
+        }
+        return null;
+    }
+
+    private static void record(String name, long nanos) {
+        synchronized (timings) {
+            timings.put(name, nanos / 1_000_000);
+        }
+    }
+
+    private static void printSummary() {
+        StringBuilder summary = new StringBuilder("Startup warm-up finished in ")
+            .append((System.nanoTime() - startedNanos) / 1_000_000).append("ms");
+        // Includes JVM and JavaFX start-up, which happen before this class is loaded
+        long sinceLaunch = millisSinceLaunch();
+        if (sinceLaunch >= 0) {
+            summary.append(" (").append(sinceLaunch).append("ms since launch)");
+        }
+        summary.append(": ");
+        String separator = "";
+        for (Map.Entry<String, Long> timing : getTimings().entrySet()) {
+            summary.append(separator).append(timing.getKey()).append(' ').append(timing.getValue()).append("ms");
+            separator = ", ";
+        }
+        System.out.println(summary);
+    }
+}
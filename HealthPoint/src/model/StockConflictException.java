@@ -0,0 +1,27 @@
+package model;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Thrown when an order cannot be placed because one or more products no longer have
+ * enough stock. The transaction has already been rolled back when this is thrown.
+ */
+public class StockConflictException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    // OrderItem is not Serializable; the list is only read by the caller that caught this
+    private final transient List<OrderItem> conflictingItems;
+
+    public StockConflictException(List<OrderItem> conflictingItems) {
+        super("Insufficient stock for " + conflictingItems.size() + " item(s)");
+        this.conflictingItems = Collections.unmodifiableList(conflictingItems);
+    }
+
+    // Cart lines whose conditional stock decrement matched no row
+    public List<OrderItem> getConflictingItems() {
+        return conflictingItems;
+    }
+}
@@ -0,0 +1,167 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Holds stock for open carts so two tills cannot sell the same last units.
+ *
+ * Each cart has at most one hold per product (stock_reservations, keyed by cart_id and
+ * product_id). A hold is granted with a single conditional UPSERT that only succeeds
+ * when the product's stock minus everything other carts are holding covers the request,
+ * so concurrent terminals are serialized by SQLite's write lock rather than by a
+ * read-then-write race. Holds expire after HOLD_TTL_MILLIS of cart inactivity and are
+ * swept periodically; placing the order consumes them in the same transaction, and its
+ * stock decrement leaves what other carts hold untouched (OrderBatchWriter).
+ */
+public class StockReservationService {
+
+    public static final long HOLD_TTL_MILLIS = 15 * 60 * 1000;
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+
+    // Stock other carts are holding right now, for product p; a null cart counts every hold
+    static final String HELD_BY_OTHERS =
+        "COALESCE((SELECT SUM(r.quantity) FROM stock_reservations r " +
+        "WHERE r.product_id = p.product_id AND r.cart_id IS NOT ? AND r.expires_at > ?), 0)";
+
+    private static final String RESERVE_SQL =
+        "INSERT INTO stock_reservations (cart_id, product_id, quantity, expires_at) " +
+        "SELECT ?, p.product_id, ?, ? FROM meds_product p " +
+        "WHERE p.product_id = ? AND p.stock - " + HELD_BY_OTHERS + " >= ? " +
+        "ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = excluded.quantity, expires_at = excluded.expires_at";
+    private static final String AVAILABLE_SQL =
+        "SELECT p.stock - " + HELD_BY_OTHERS + " FROM meds_product p WHERE p.product_id = ?";
+    private static final String TOUCH_CART_SQL =
+        "UPDATE stock_reservations SET expires_at = ? WHERE cart_id = ?";
+    private static final String RELEASE_SQL =
+        "DELETE FROM stock_reservations WHERE cart_id = ? AND product_id = ?";
+    static final String RELEASE_CART_SQL =
+        "DELETE FROM stock_reservations WHERE cart_id = ?";
+    private static final String PURGE_EXPIRED_SQL =
+        "DELETE FROM stock_reservations WHERE expires_at <= ?";
+
+    private static ScheduledExecutorService sweeper;
+
+    /*
+     * Sets this cart's hold on a product to the given total, if enough unheld stock exists.
+     * Also pushes back the expiry of every other hold in the cart.
+     * @param cartId The cart asking for stock
+     * @param productId The product to hold
+     * @param totalQuantity The quantity the cart should hold in total (not an increment)
+     * @return reserved, or conflict with the quantity that could be held
+     */
+    public static ReservationResult reserve(String cartId, int productId, int totalQuantity) throws SQLException {
+        startExpirySweeper();
+        long now = System.currentTimeMillis();
+        long expiresAt = now + HOLD_TTL_MILLIS;
+
+        try (ConnectionLease lease = SqliteConnection.leaseWriter()) {
+            Connection connection = lease.getConnection();
+            connection.setAutoCommit(false);
+            try {
+                PreparedStatement reserve = lease.prepare(RESERVE_SQL);
+                reserve.setString(1, cartId);
+                reserve.setInt(2, totalQuantity);
+                reserve.setLong(3, expiresAt);
+                reserve.setInt(4, productId);
+                reserve.setString(5, cartId);
+                reserve.setLong(6, now);
+                reserve.setInt(7, totalQuantity);
+                int held = reserve.executeUpdate();
+
+                int available = queryAvailable(lease, cartId, productId, now);
+
+                if (held > 0) {
+                    PreparedStatement touch = lease.prepare(TOUCH_CART_SQL);
+                    touch.setLong(1, expiresAt);
+                    touch.setString(2, cartId);
+                    touch.executeUpdate();
+                }
+                connection.commit();
+
+                return held > 0
+                    ? ReservationResult.reserved(productId, totalQuantity, available)
+                    : ReservationResult.conflict(productId, totalQuantity, Math.max(available, 0));
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /* Drops this cart's hold on one product. */
+    public static void release(String cartId, int productId) throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseWriter()) {
+            PreparedStatement release = lease.prepare(RELEASE_SQL);
+            release.setString(1, cartId);
+            release.setInt(2, productId);
+            release.executeUpdate();
+        }
+    }
+
+    /* Drops every hold belonging to the cart. */
+    public static void releaseCart(String cartId) throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseWriter()) {
+            PreparedStatement release = lease.prepare(RELEASE_CART_SQL);
+            release.setString(1, cartId);
+            release.executeUpdate();
+        }
+    }
+
+    /*
+     * Units of a product the cart could still hold: stock minus other carts' active holds.
+     */
+    public static int getAvailableQuantity(String cartId, int productId) throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+            return Math.max(queryAvailable(lease, cartId, productId, System.currentTimeMillis()), 0);
+        }
+    }
+
+    /* Deletes holds whose carts went quiet. Returns the number of holds removed. */
+    public static int purgeExpired() throws SQLException {
+        try (ConnectionLease lease = SqliteConnection.leaseWriter()) {
+            PreparedStatement purge = lease.prepare(PURGE_EXPIRED_SQL);
+            purge.setLong(1, System.currentTimeMillis());
+            return purge.executeUpdate();
+        }
+    }
+
+    private static int queryAvailable(ConnectionLease lease, String cartId, int productId, long now) throws SQLException {
+        PreparedStatement available = lease.prepare(AVAILABLE_SQL);
+        available.setString(1, cartId);
+        available.setLong(2, now);
+        available.setInt(3, productId);
+        try (ResultSet resultSet = available.executeQuery()) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    // Expired holds never block anyone (every check filters on expires_at), this just keeps the table small
+    private static synchronized void startExpirySweeper() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                int purged = purgeExpired();
+                if (purged > 0) {
+                    System.out.println("Released " + purged + " expired stock reservation(s)");
+                }
+            } catch (SQLException e) {
+                System.err.println("Error purging expired reservations: " + e.getMessage());
+            }
+        }, 0, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,83 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+ * PRAGMA settings applied to every pooled connection when it is opened.
+ *
+ * Both profiles run the database in WAL mode so inventory reads no longer wait behind
+ * order writes. They differ in how hard SQLite works to survive a power cut:
+ *  - DURABLE:    synchronous=FULL, every commit is fsynced before it returns.
+ *  - THROUGHPUT: synchronous=NORMAL, the WAL is fsynced at checkpoints only. A crash of the
+ *                application never loses data; a power loss can drop the last few commits.
+ *
+ * Pick one with -Dhealthpoint.storage.profile=durable|throughput (default: throughput).
+ */
+public enum StorageProfile {
+
+    //          synchronous  cache_size(KiB)  mmap_size           checkpoint interval
+    DURABLE    ("FULL",      16_384,          64L * 1024 * 1024,  30),
+    THROUGHPUT ("NORMAL",    65_536,          256L * 1024 * 1024, 60);
+
+    public static final String SYSTEM_PROPERTY = "healthpoint.storage.profile";
+
+    private static final int BUSY_TIMEOUT_MILLIS = 5_000;
+    private static final int WAL_AUTOCHECKPOINT_PAGES = 1_000;
+    // The WAL is cut back to this size whenever it is reset after a checkpoint
+    private static final long JOURNAL_SIZE_LIMIT_BYTES = 16L * 1024 * 1024;
+
+    private final String synchronous;
+    private final int cacheSizeKib;
+    private final long mmapSizeBytes;
+    private final int checkpointIntervalSeconds;
+
+    StorageProfile(String synchronous, int cacheSizeKib, long mmapSizeBytes, int checkpointIntervalSeconds) {
+        this.synchronous = synchronous;
+        this.cacheSizeKib = cacheSizeKib;
+        this.mmapSizeBytes = mmapSizeBytes;
+        this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+    }
+
+    /*
+     * Applies this profile to a freshly opened connection.
+     * @param connection The new connection
+     * @param readOnly True for reader connections, which cannot change the journal mode
+     */
+    public void apply(Connection connection, boolean readOnly) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // busy_timeout first so the remaining pragmas wait out a concurrent writer
+            statement.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+            if (!readOnly) {
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA wal_autocheckpoint = " + WAL_AUTOCHECKPOINT_PAGES);
+                // Without a limit a WAL that grew while readers held back checkpoints keeps its size until shutdown
+                statement.execute("PRAGMA journal_size_limit = " + JOURNAL_SIZE_LIMIT_BYTES);
+            }
+            statement.execute("PRAGMA synchronous = " + synchronous);
+            // Negative cache_size is measured in KiB rather than pages
+            statement.execute("PRAGMA cache_size = -" + cacheSizeKib);
+            statement.execute("PRAGMA mmap_size = " + mmapSizeBytes);
+            statement.execute("PRAGMA temp_store = MEMORY");
+        }
+    }
+
+    public int getCheckpointIntervalSeconds() {
+        return checkpointIntervalSeconds;
+    }
+
+    /* Reads the profile from the system property, falling back to THROUGHPUT. */
+    public static StorageProfile fromSystemProperty() {
+        String value = System.getProperty(SYSTEM_PROPERTY);
+        if (value == null || value.trim().isEmpty()) {
+            return THROUGHPUT;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown storage profile '" + value + "', using " + THROUGHPUT);
+            return THROUGHPUT;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package model;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import model.DataChangeBus.ProductChange;
+
+/*
+ * Small copies of product photos, so screens never decode the original files.
+ *
+ * A thumbnail is a PNG no larger than THUMBNAIL_SIZE on either side, named after the
+ * SHA-256 of the source file's bytes (thumbnails/ab/abcdef....png). The same photo used
+ * by several products, or chosen again, is scaled only once. meds_product.thumbnail_key
+ * records the hash; displayPath() turns it back into a file for ImageCache.
+ *
+ * Scaling is CPU work, so it runs on a small pool of platform threads rather than on
+ * IoExecutor. Thumbnails are made when an image is chosen, when a product is saved, and
+ * at startup for products that have none yet (backfillAsync).
+ */
+public class ThumbnailStore {
+
+    public static final int THUMBNAIL_SIZE = 180;
+    public static final String DIRECTORY_PROPERTY = "healthpoint.thumbnails.dir";
+
+    private static final Path directory = Paths.get(System.getProperty(DIRECTORY_PROPERTY, "thumbnails"));
+    private static final int WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final AtomicInteger workerCount = new AtomicInteger();
+    private static final ExecutorService workers = Executors.newFixedThreadPool(WORKERS, task -> {
+        Thread thread = new Thread(task, "thumbnail-" + workerCount.getAndIncrement());
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    // Source path -> thumbnail being made, so choosing and then saving an image shares one job
+    private static final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private static final String RECORD_KEY_SQL =
+        "UPDATE meds_product SET thumbnail_key = ? WHERE product_id = ? AND image_path = ?";
+    private static final String MISSING_SQL =
+        "SELECT product_id, image_path, thumbnail_key FROM meds_product " +
+        "WHERE image_path IS NOT NULL AND image_path <> ''";
+
+    /*
+     * Makes (or finds) the thumbnail for an image file on the worker pool.
+     * @param imagePath Absolute path of the original photo
+     * @return The thumbnail key, or a failed future if the file cannot be read or decoded
+     */
+    public static CompletableFuture<String> generateAsync(String imagePath) {
+        CompletableFuture<String> job = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(imagePath, job);
+        if (running != null) {
+            return running;
+        }
+        workers.execute(() -> {
+            try {
+                String key = generate(imagePath);
+                inFlight.remove(imagePath, job);
+                job.complete(key);
+            } catch (Exception e) {
+                inFlight.remove(imagePath, job);
+                job.completeExceptionally(e);
+            }
+        });
+        return job;
+    }
+
+    /*
+     * Makes the thumbnail for a saved product's image and records its key, in the background.
+     * The key is only written if the product still points at the same image.
+     */
+    public static void attachAsync(Product product) {
+        int productId = product.getId();
+        String imagePath = product.getImagePath();
+        if (imagePath == null || imagePath.isEmpty()) {
+            product.setThumbnailKey(null);
+            return;
+        }
+        generateAsync(imagePath).whenComplete((key, error) -> {
+            if (error != null) {
+                System.err.println("No thumbnail for product " + productId + ": " + describe(error));
+                return;
+            }
+            if (!recordKeys(Map.of(imagePath, List.of(productId)), Map.of(imagePath, key)).isEmpty()
+                    && imagePath.equals(product.getImagePath())) {
+                product.setThumbnailKey(key);
+            }
+        });
+    }
+
+    /* The file to show for a product: its thumbnail when it has one, else the original. */
+    public static String displayPath(Product product) {
+        String key = product.getThumbnailKey();
+        if (key != null && !key.isEmpty()) {
+            return pathFor(key).toString();
+        }
+        return product.getImagePath();
+    }
+
+    /* Where the thumbnail with this key is stored. */
+    public static Path pathFor(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".png").toAbsolutePath();
+    }
+
+    /*
+     * Queues thumbnails for every product with an image but no thumbnail (or whose
+     * thumbnail file is gone). Runs in the background; call once at startup.
+     */
+    public static void backfillAsync() {
+        IoExecutor.execute("thumbnails.backfill", () -> {
+            // Image path -> product IDs using it
+            Map<String, List<Integer>> missing = new LinkedHashMap<>();
+            try (ConnectionLease lease = SqliteConnection.leaseReader()) {
+                PreparedStatement statement = lease.prepare(MISSING_SQL);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        String key = resultSet.getString("thumbnail_key");
+                        if (key == null || key.isEmpty() || !Files.exists(pathFor(key))) {
+                            missing.computeIfAbsent(resultSet.getString("image_path"), path -> new ArrayList<>())
+                                .add(resultSet.getInt("product_id"));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println("Thumbnail backfill failed: " + e.getMessage());
+                return;
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            System.out.println("Generating thumbnails for " + missing.size() + " product image(s)");
+
+            // Image path -> key; recorded all at once so startup costs the writer one commit
+            Map<String, String> keys = new ConcurrentHashMap<>();
+            CompletableFuture<?>[] jobs = new CompletableFuture<?>[missing.size()];
+            int index = 0;
+            for (String imagePath : missing.keySet()) {
+                jobs[index++] = generateAsync(imagePath).whenComplete((key, error) -> {
+                    if (error != null) {
+                        System.err.println("No thumbnail for " + imagePath + ": " + describe(error));
+                        return;
+                    }
+                    keys.put(imagePath, key);
+                });
+            }
+            CompletableFuture.allOf(jobs).handle((ignored, error) -> {
+                IoExecutor.execute("thumbnails.record", () -> {
+                    List<Integer> updated = recordKeys(missing, keys);
+                    System.out.println("Thumbnail backfill finished (" + updated.size() + " product(s) updated)");
+                });
+                return null;
+            });
+        });
+    }
+
+    // Hash, then scale only if no thumbnail with that hash exists yet
+    static String generate(String imagePath) throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(imagePath));
+        String key = sha256(bytes);
+        Path target = pathFor(key);
+        if (Files.exists(target)) {
+            return key;
+        }
+
+        BufferedImage thumbnail = scale(decode(bytes));
+        Files.createDirectories(target.getParent());
+        // Write to a temp file and rename, so a reader never sees half a PNG
+        Path temp = Files.createTempFile(target.getParent(), key, ".tmp");
+        try {
+            if (!ImageIO.write(thumbnail, "png", temp.toFile())) {
+                throw new IOException("No PNG writer available");
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return key;
+    }
+
+    // Reads at reduced resolution when the photo is much larger than the thumbnail
+    private static BufferedImage decode(byte[] bytes) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                // Keep at least twice the target resolution so the final scale stays smooth
+                int step = Math.max(1, longestSide / (THUMBNAIL_SIZE * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source) {
+        double factor = Math.min(1.0, (double) THUMBNAIL_SIZE / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * factor));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /*
+     * Stores each image's key on the products still showing that image, in one transaction,
+     * then announces them on DataChangeBus so open screens switch from the original to the
+     * thumbnail.
+     * @param productsByImage Image path -> product IDs using it
+     * @param keysByImage Image path -> thumbnail key; images without a key are skipped
+     * @return The products that were updated
+     */
+    private static List<Integer> recordKeys(Map<String, List<Integer>> productsByImage, Map<String, String> keysByImage) {
+        List<Integer> updated = new ArrayList<>();
+        if (keysByImage.isEmpty()) {
+            return updated;
+        }
+        try (ConnectionLease lease = SqliteConnection.leaseWriter()) {
+            Connection connection = lease.getConnection();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                PreparedStatement statement = lease.prepare(RECORD_KEY_SQL);
+                for (Map.Entry<String, String> entry : keysByImage.entrySet()) {
+                    for (int productId : productsByImage.getOrDefault(entry.getKey(), List.of())) {
+                        statement.setString(1, entry.getValue());
+                        statement.setInt(2, productId);
+                        statement.setString(3, entry.getKey());
+                        if (statement.executeUpdate() > 0) {
+                            updated.add(productId);
+                        }
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                updated.clear();
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            System.err.println("Could not record thumbnails for " + keysByImage.size() + " image(s): " + e.getMessage());
+        }
+        // After the lease is returned; the reread takes a reader
+        if (!updated.isEmpty()) {
+            ProductRepository.publishChanges(ProductChange.Type.UPDATED, updated);
+        }
+        return updated;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof NoSuchFileException) {
+            return "file not found";
+        }
+        return cause.getMessage();
+    }
+}
@@ -0,0 +1,144 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import controller.ViewManager;
+import javafx.application.Platform;
+
+/*
+ * Scripted runs for scripts/healthpoint.sh and .bat, selected with -Dhealthpoint.training:
+ *
+ *   startup   exit as soon as startup warm-up is done, printing the time and memory
+ *   workload  also log in, page through inventory, search, open Order and check out one
+ *             item, so a class-data-sharing archive recorded during it holds every
+ *             class a real session loads first
+ *
+ * Results are printed as KEY=value lines for the scripts to collect. The workload writes
+ * an order, so the scripts run it against a copy of the database.
+ */
+public class TrainingRun {
+
+    public static final String MODE_PROPERTY = "healthpoint.training";
+
+    /* Starts the run selected on the command line, if any. Call after the login page is shown. */
+    public static void startIfRequested() {
+        String mode = System.getProperty(MODE_PROPERTY);
+        if (mode == null || mode.isEmpty()) {
+            return;
+        }
+        System.out.println("Training run: " + mode);
+        StartupOrchestrator.whenReady().thenRun(() -> {
+            report("STARTUP_READY_MS", StartupOrchestrator.millisSinceLaunch());
+            if ("workload".equals(mode)) {
+                runWorkload();
+            } else {
+                finish();
+            }
+        });
+    }
+
+    private static void runWorkload() {
+        long started = System.nanoTime();
+        IoExecutor.execute("training.workload", () -> {
+            try {
+                // Login query; the result does not matter
+                new LoginModel().isLogin("training", "training");
+                onFxThread(() -> ViewManager.show(ViewManager.Screen.INVENTORY));
+
+                ProductPageSource pages = ProductPageSource.defaultSource();
+                pages.nextPage(pages.firstPage());
+                new ProductPageSource(ProductPageSource.SortColumn.NAME, true, ProductPageSource.DEFAULT_PAGE_SIZE).firstPage();
+                ProductSearchService.searchAvailable("a", null);
+
+                onFxThread(() -> ViewManager.show(ViewManager.Screen.ORDER));
+                checkout();
+                onFxThread(() -> ViewManager.show(ViewManager.Screen.INVENTORY));
+
+                report("WORKLOAD_MS", (System.nanoTime() - started) / 1_000_000);
+            } catch (Exception e) {
+                System.err.println("Training workload failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+            finish();
+        });
+    }
+
+    // Holds and sells one unit of the first product in stock, as the Order page does
+    private static void checkout() throws Exception {
+        ProductCatalogCache.Snapshot snapshot = ProductCatalogCache.getInstance().refresh();
+        List<Product> sellable = snapshot != null
+            ? snapshot.getSellable()
+            : ProductSearchService.searchAvailable(null, null).getProducts();
+        if (sellable.isEmpty()) {
+            System.out.println("Training run: no product in stock, checkout skipped");
+            return;
+        }
+        Product product = sellable.get(0);
+        String cartId = UUID.randomUUID().toString();
+        StockReservationService.reserve(cartId, product.getId(), 1);
+
+        OrderItem item = new OrderItem(0, product.getId(), product.getName(), 1, product.getPrice(), product.getPrice());
+        Order order = new Order(OrderIdGenerator.generateOrderId(), "Training", "Cash", "Completed",
+            product.getPrice(), LocalDateTime.now(), List.of(item), null);
+        System.out.println("Training order " + order.getId() + ": " + OrderRepository.placeOrder(order, cartId));
+    }
+
+    // Runs a UI step on the FX thread and waits for it
+    private static void onFxThread(UiStep step) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                step.run();
+                done.complete(null);
+            } catch (Exception e) {
+                done.completeExceptionally(e);
+            }
+        });
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void finish() {
+        report("PEAK_RSS_KB", peakRssKilobytes());
+        Platform.exit();
+        // Ends the JVM even if a pool thread is still running; shutdown hooks close the database
+        System.exit(0);
+    }
+
+    // From /proc on Linux; elsewhere the scripts measure it from outside
+    private static long peakRssKilobytes() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Could not read peak RSS: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    private static void report(String key, long value) {
+        System.out.println(key + "=" + value);
+    }
+
+    private interface UiStep {
+        void run() throws Exception;
+    }
+}